@@ -15,8 +15,8 @@
  */
 package io.github.t3r1jj.checkersai.model;
 
-import io.github.t3r1jj.checkersai.model.ai.Computer;
 import io.github.t3r1jj.checkersai.model.ai.EvaluatorConfig;
+import io.github.t3r1jj.checkersai.model.ai.EvaluatorParameters;
 import io.github.t3r1jj.checkersai.model.checker.Checker;
 import io.github.t3r1jj.checkersai.model.checker.EmptySpace;
 import io.github.t3r1jj.checkersai.model.checker.NoChecker;
@@ -28,30 +28,102 @@ import java.util.List;
 
 public class Board {
 
+    public static final int UP_LEFT = 0;
+    public static final int UP_RIGHT = 1;
+    public static final int DOWN_LEFT = 2;
+    public static final int DOWN_RIGHT = 3;
+    /**
+     * Direction order of white checkers (pawns use only the first two) and of
+     * red checkers jumps, as generated by the checker classes.
+     */
+    public static final int[] WHITE_ORDER = {UP_RIGHT, UP_LEFT, DOWN_RIGHT, DOWN_LEFT};
+    public static final int[] FORCED_RED_ORDER = {DOWN_RIGHT, DOWN_LEFT, UP_RIGHT, UP_LEFT};
+    private static final int[] NON_FORCED_RED_ORDER = {DOWN_LEFT, DOWN_RIGHT, UP_LEFT, UP_RIGHT};
+
     public Checker[][] checkers;
+    /**
+     * Bitboard of the playable squares, bit index is y * (length / 2) + x / 2.
+     * Kept in sync with checkers array, used for move generation.
+     */
+    private int whites;
+    private int reds;
+    private int kings;
+    /**
+     * Zobrist hash of the pieces, side to move is added in
+     * {@link #getHash(Turn)}.
+     */
+    private long hash;
+    /**
+     * Values of the pieces on each square, positive for white and negative
+     * for red, indexed like the Zobrist keys. Their sum over the pieces is
+     * kept along with the hash.
+     */
+    private final int[][] pieceValues;
+    private int score;
+    private final Squares squares;
+    private final int rowWidth;
+    private final int allSquares;
+    private final int evenRows;
+    private final int leftEdge;
+    private final int rightEdge;
+    // Scratch masks of the checkers able to move in each direction
+    private final int[] sources = new int[4];
     private int stalemateCounter;
     private int lastCheckersCount;
     private int redCheckersCount;
     private int whiteCheckersCount;
     private static int maxRoundsWithoutProgress;
     private EvaluatorConfig config;
+    private final EvaluatorParameters parameters;
 
     public Board(int x, int maxRoundsWithoutProgress, EvaluatorConfig config) {
+        if (x % 2 != 0 || x * x / 2 > Integer.SIZE) {
+            throw new IllegalArgumentException("Board size has to be even and its playable squares have to fit in an int, was: " + x);
+        }
         this.checkers = new Checker[x][x];
         this.config = config;
         Board.maxRoundsWithoutProgress = maxRoundsWithoutProgress;
+        this.squares = Squares.forSize(x);
+        this.rowWidth = squares.getRowWidth();
+        this.allSquares = squares.getAllSquares();
+        this.evenRows = squares.getEvenRows();
+        this.leftEdge = squares.getLeftEdge();
+        this.rightEdge = squares.getRightEdge();
+        this.parameters = config.compile();
+        this.pieceValues = createPieceValues(parameters, squares.getCount());
         initializeBoard();
     }
 
     public Board(Board board) {
         this.config = board.getConfig();
+        this.parameters = board.parameters;
         this.checkers = new Checker[board.getHeight()][board.getLength()];
+        this.pieceValues = board.pieceValues;
+        this.squares = board.squares;
+        this.rowWidth = board.rowWidth;
+        this.allSquares = board.allSquares;
+        this.evenRows = board.evenRows;
+        this.leftEdge = board.leftEdge;
+        this.rightEdge = board.rightEdge;
+        copyPosition(board);
+    }
+
+    /**
+     * Copies the pieces and the progress counters of a board of the same size
+     * and config, e.g. into the board of a search helper kept between moves.
+     */
+    public final void copyPosition(Board board) {
         for (int i = 0; i < board.getHeight(); i++) {
             int j = (i % 2 == 0) ? 1 : 0;
             for (; j < getLength(); j += 2) {
                 this.checkers[i][j] = board.checkers[i][j].clone();
             }
         }
+        this.whites = board.whites;
+        this.reds = board.reds;
+        this.kings = board.kings;
+        this.hash = board.hash;
+        this.score = board.score;
         this.redCheckersCount = board.redCheckersCount;
         this.whiteCheckersCount = board.whiteCheckersCount;
         this.stalemateCounter = board.stalemateCounter;
@@ -62,6 +134,14 @@ public class Board {
         return config;
     }
 
+    /**
+     * @return evaluation values of the config compiled when the board was
+     * created
+     */
+    public EvaluatorParameters getParameters() {
+        return parameters;
+    }
+
     public final int getLength() {
         return checkers[0].length;
     }
@@ -94,28 +174,259 @@ public class Board {
                 }
             }
         }
+        for (int i = 0; i < getHeight(); i++) {
+            int j = (i % 2 == 0) ? 1 : 0;
+            for (; j < getLength(); j += 2) {
+                if (checkers[i][j].getSide() == Turn.WHITE) {
+                    whites |= 1 << getSquare(j, i);
+                    hash ^= Zobrist.getPieceKey(true, false, getSquare(j, i));
+                    score += getPieceValue(true, false, getSquare(j, i));
+                } else if (checkers[i][j].getSide() == Turn.RED) {
+                    reds |= 1 << getSquare(j, i);
+                    hash ^= Zobrist.getPieceKey(false, false, getSquare(j, i));
+                    score += getPieceValue(false, false, getSquare(j, i));
+                }
+            }
+        }
+    }
+
+    public Squares getSquares() {
+        return squares;
+    }
+
+    public int getSquare(int x, int y) {
+        return squares.getSquare(x, y);
+    }
+
+    public int getSquareX(int square) {
+        return squares.getX(square);
+    }
+
+    public int getSquareY(int square) {
+        return squares.getY(square);
+    }
+
+    public int getWhites() {
+        return whites;
+    }
+
+    public int getReds() {
+        return reds;
+    }
+
+    public int getKings() {
+        return kings;
+    }
+
+    /**
+     * Adds the piece-square tables to the material, red pieces use the
+     * squares of the board rotated by 180 degrees.
+     */
+    private static int[][] createPieceValues(EvaluatorParameters parameters, int count) {
+        int[][] values = new int[4][count];
+        for (int square = 0; square < count; square++) {
+            int rotated = count - 1 - square;
+            values[0][square] = parameters.getWhitePawn() + parameters.getPawnSquare(square, count);
+            values[1][square] = parameters.getWhiteKing() + parameters.getKingSquare(square, count);
+            values[2][square] = -parameters.getRedPawn() - parameters.getPawnSquare(rotated, count);
+            values[3][square] = -parameters.getRedKing() - parameters.getKingSquare(rotated, count);
+        }
+        return values;
+    }
+
+    private int getPieceValue(boolean white, boolean king, int square) {
+        return pieceValues[(white ? 0 : 2) + (king ? 1 : 0)][square];
+    }
+
+    /**
+     * @return sum of the values of white pieces less the sum of red ones,
+     * kept up to date by the moves
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return hash of the position with given side to move
+     */
+    public long getHash(Turn player) {
+        return hash ^ Zobrist.getSideKey(player);
+    }
+
+    private int getEmpty() {
+        return ~(whites | reds) & allSquares;
+    }
+
+    /**
+     * Shifts every square of the mask to its neighbour in given direction,
+     * squares without such neighbour are dropped.
+     */
+    private int neighbours(int squares, int direction) {
+        switch (direction) {
+            case UP_LEFT:
+                return ((squares & evenRows) >>> rowWidth) | ((squares & ~evenRows & ~leftEdge) >>> (rowWidth + 1));
+            case UP_RIGHT:
+                return ((squares & evenRows & ~rightEdge) >>> (rowWidth - 1)) | ((squares & ~evenRows) >>> rowWidth);
+            case DOWN_LEFT:
+                return (((squares & evenRows) << rowWidth) | ((squares & ~evenRows & ~leftEdge) << (rowWidth - 1))) & allSquares;
+            default:
+                return (((squares & evenRows & ~rightEdge) << (rowWidth + 1)) | ((squares & ~evenRows) << rowWidth)) & allSquares;
+        }
+    }
+
+    /**
+     * @return number of single steps of the player's kings
+     */
+    public int countKingSteps(Turn player) {
+        int own = ((player == Turn.RED) ? reds : whites) & kings;
+        if (own == 0) {
+            return 0;
+        }
+        int empty = getEmpty();
+        int steps = 0;
+        for (int direction = UP_LEFT; direction <= DOWN_RIGHT; direction++) {
+            steps += Integer.bitCount(own & neighbours(empty, opposite(direction)));
+        }
+        return steps;
+    }
+
+    /**
+     * @return number of the player's pawns in the half of the board next to
+     * their promotion row with no enemy ahead of them, not farther sideways
+     * than ahead
+     */
+    public int countRunaways(Turn player) {
+        boolean white = player != Turn.RED;
+        int upperHalf = allSquares >>> (getHeight() / 2 * rowWidth);
+        int pawns = ((white) ? whites & upperHalf : reds & ~upperHalf) & ~kings;
+        // a pawn is stopped by the enemies whose diagonals towards it reach it
+        int reach = (white) ? reds : whites;
+        for (int row = 1; row < getHeight() / 2 && (pawns & ~reach) != 0; row++) {
+            reach |= (white) ? spreadDown(reach) : spreadUp(reach);
+        }
+        return Integer.bitCount(pawns & ~reach);
+    }
+
+    /**
+     * @return neighbours of the squares in both directions down
+     */
+    private int spreadDown(int squares) {
+        return ((squares << rowWidth) | ((squares & ~evenRows & ~leftEdge) << (rowWidth - 1))
+                | ((squares & evenRows & ~rightEdge) << (rowWidth + 1))) & allSquares;
+    }
+
+    /**
+     * @return neighbours of the squares in both directions up
+     */
+    private int spreadUp(int squares) {
+        return (squares >>> rowWidth) | ((squares & ~evenRows & ~leftEdge) >>> (rowWidth + 1))
+                | ((squares & evenRows & ~rightEdge) >>> (rowWidth - 1));
+    }
+
+    private int opposite(int direction) {
+        return DOWN_RIGHT - direction;
+    }
+
+    private int stepSources(int pieces, int direction) {
+        return pieces & neighbours(getEmpty(), opposite(direction));
+    }
+
+    private int captureSources(int pieces, int enemies, int direction) {
+        return pieces & neighbours(neighbours(getEmpty(), opposite(direction)) & enemies, opposite(direction));
+    }
+
+    /**
+     * Converts per direction source masks into packed moves, preserving the
+     * order of squares and directions used by the checkers.
+     */
+    private void collectMoves(int[] order, int distance, MoveList moves) {
+        int movers = sources[UP_LEFT] | sources[UP_RIGHT] | sources[DOWN_LEFT] | sources[DOWN_RIGHT];
+        while (movers != 0) {
+            int square = Integer.numberOfTrailingZeros(movers);
+            movers &= movers - 1;
+            boolean pawn = (kings & (1 << square)) == 0;
+            int promotionRow = (whites & (1 << square)) != 0 ? 0 : getHeight() - 1;
+            for (int direction : order) {
+                if ((sources[direction] & (1 << square)) != 0) {
+                    int neighbour = squares.getNeighbour(square, direction);
+                    int destination = (distance == 2) ? squares.getLanding(square, direction) : neighbour;
+                    int captured = (distance == 2) ? 1 << neighbour : 0;
+                    int path = (distance == 2) ? direction : 0;
+                    moves.add(Moves.create(square, destination, captured, pawn && squares.getY(destination) == promotionRow, path));
+                }
+            }
+        }
+    }
+
+    public Move toMove(long move) {
+        int source = Moves.getSource(move);
+        int destination = Moves.getDestination(move);
+        return new Move(new Point(getSquareX(source), getSquareY(source)),
+                new Point(getSquareX(destination), getSquareY(destination)));
+    }
+
+    private List<Move> toMoves(MoveList moves) {
+        List<Move> list = new LinkedList<Move>();
+        for (int i = 0; i < moves.size(); i++) {
+            list.add(toMove(moves.get(i)));
+        }
+        return list;
     }
 
     public void move(Point source, Point destination) {
         this.checkers[source.y][source.x].move(destination);
         this.checkers[destination.y][destination.x] = this.checkers[source.y][source.x];
         this.checkers[source.y][source.x] = NoChecker.getInstance();
+        int sourceSquare = getSquare(source.x, source.y);
+        int destinationSquare = getSquare(destination.x, destination.y);
+        int path = (1 << sourceSquare) | (1 << destinationSquare);
+        boolean white = (whites & path) != 0;
+        boolean king = (kings & path) != 0;
+        if (white) {
+            whites ^= path;
+        } else {
+            reds ^= path;
+        }
+        if (king) {
+            kings ^= path;
+        }
+        hash ^= Zobrist.getPieceKey(white, king, sourceSquare) ^ Zobrist.getPieceKey(white, king, destinationSquare);
+        score += getPieceValue(white, king, destinationSquare) - getPieceValue(white, king, sourceSquare);
         // Promote pawn to king
         if (destination.y == 0 || destination.y == getHeight() - 1) {
             this.checkers[destination.y][destination.x] = this.checkers[destination.y][destination.x].tryPromoting(this);
+            if (!king && ((destination.y == 0 && white) || (destination.y == getHeight() - 1 && !white))) {
+                kings |= 1 << destinationSquare;
+                hash ^= Zobrist.getPieceKey(white, false, destinationSquare) ^ Zobrist.getPieceKey(white, true, destinationSquare);
+                score += getPieceValue(white, true, destinationSquare) - getPieceValue(white, false, destinationSquare);
+            }
         }
     }
 
     public void captureRedChecker(Point source, Point destination) {
-        Point dir = new Point((destination.x - source.x) / 2, (destination.y - source.y) / 2);
-        this.checkers[source.y + dir.y][source.x + dir.x] = NoChecker.getInstance();
+        int capturedX = (source.x + destination.x) / 2;
+        int capturedY = (source.y + destination.y) / 2;
+        this.checkers[capturedY][capturedX] = NoChecker.getInstance();
+        int capturedSquare = getSquare(capturedX, capturedY);
+        int captured = 1 << capturedSquare;
+        hash ^= Zobrist.getPieceKey(false, (kings & captured) != 0, capturedSquare);
+        score -= getPieceValue(false, (kings & captured) != 0, capturedSquare);
+        reds &= ~captured;
+        kings &= ~captured;
         redCheckersCount--;
         this.move(source, destination);
     }
 
     public void captureWhiteChecker(Point source, Point destination) {
-        Point dir = new Point((destination.x - source.x) / 2, (destination.y - source.y) / 2);
-        this.checkers[source.y + dir.y][source.x + dir.x] = NoChecker.getInstance();
+        int capturedX = (source.x + destination.x) / 2;
+        int capturedY = (source.y + destination.y) / 2;
+        this.checkers[capturedY][capturedX] = NoChecker.getInstance();
+        int capturedSquare = getSquare(capturedX, capturedY);
+        int captured = 1 << capturedSquare;
+        hash ^= Zobrist.getPieceKey(true, (kings & captured) != 0, capturedSquare);
+        score -= getPieceValue(true, (kings & captured) != 0, capturedSquare);
+        whites &= ~captured;
+        kings &= ~captured;
         whiteCheckersCount--;
         this.move(source, destination);
     }
@@ -148,65 +459,207 @@ public class Board {
         }
     }
 
-    public List<Move> generateForcedWhiteMoves() {
-        List<Move> forcedMovesForWhite = new LinkedList<Move>();
-        for (int i = 0; i < getHeight(); i++) {
-            int j = (i % 2 == 0) ? 1 : 0;
-            for (; j < getLength(); j += 2) {
-                if (checkers[i][j].getSide() == Turn.WHITE) {
-                    forcedMovesForWhite.addAll(checkers[i][j].generateForcedMoves(this));
-                }
-            }
+    /**
+     * Makes a packed move (a single move, a jump or a whole jump sequence) in
+     * place, it can be taken back with {@link #unmakeMove(UndoRecord)}.
+     */
+    public void makeMove(long move, UndoRecord undo) {
+        int source = Moves.getSource(move);
+        int destination = Moves.getDestination(move);
+        int captured = Moves.getCaptured(move);
+        undo.whites = whites;
+        undo.reds = reds;
+        undo.kings = kings;
+        undo.hash = hash;
+        undo.score = score;
+        undo.whiteCheckersCount = whiteCheckersCount;
+        undo.redCheckersCount = redCheckersCount;
+        undo.stalemateCounter = stalemateCounter;
+        undo.lastCheckersCount = lastCheckersCount;
+        undo.sourceX = getSquareX(source);
+        undo.sourceY = getSquareY(source);
+        undo.destinationX = getSquareX(destination);
+        undo.destinationY = getSquareY(destination);
+        undo.capturedCount = 0;
+        for (int remaining = captured; remaining != 0; remaining &= remaining - 1) {
+            int square = Integer.numberOfTrailingZeros(remaining);
+            int x = getSquareX(square);
+            int y = getSquareY(square);
+            undo.addCaptured(checkers[y][x], x, y);
+            checkers[y][x] = NoChecker.getInstance();
+        }
+        Checker moved = checkers[undo.sourceY][undo.sourceX];
+        undo.movedChecker = moved;
+        checkers[undo.sourceY][undo.sourceX] = NoChecker.getInstance();
+        moved.getCoordinates().setLocation(undo.destinationX, undo.destinationY);
+        checkers[undo.destinationY][undo.destinationX] = Moves.isPromotion(move) ? moved.promote() : moved;
+
+        int sourceSquare = 1 << source;
+        int destinationSquare = 1 << destination;
+        int capturedCount = Integer.bitCount(captured);
+        boolean white = (whites & sourceSquare) != 0;
+        for (int remaining = captured; remaining != 0; remaining &= remaining - 1) {
+            int square = Integer.numberOfTrailingZeros(remaining);
+            hash ^= Zobrist.getPieceKey(!white, (kings & (1 << square)) != 0, square);
+            score -= getPieceValue(!white, (kings & (1 << square)) != 0, square);
+        }
+        if (white) {
+            whites = (whites & ~sourceSquare) | destinationSquare;
+            reds &= ~captured;
+            redCheckersCount -= capturedCount;
+        } else {
+            reds = (reds & ~sourceSquare) | destinationSquare;
+            whites &= ~captured;
+            whiteCheckersCount -= capturedCount;
+        }
+        boolean wasKing = (kings & sourceSquare) != 0;
+        boolean king = wasKing || Moves.isPromotion(move);
+        hash ^= Zobrist.getPieceKey(white, wasKing, source) ^ Zobrist.getPieceKey(white, king, destination);
+        score += getPieceValue(white, king, destination) - getPieceValue(white, wasKing, source);
+        kings &= ~(captured | sourceSquare);
+        if (king) {
+            kings |= destinationSquare;
+        }
+        if (captured == 0 && lastCheckersCount == redCheckersCount + whiteCheckersCount) {
+            stalemateCounter++;
+        } else {
+            lastCheckersCount = redCheckersCount + whiteCheckersCount;
+            stalemateCounter = 0;
         }
-        return forcedMovesForWhite;
     }
 
-    public List<Move> generateNonForcedWhiteMoves() {
-        List<Move> allNonForcedMovesForWhite = new LinkedList<Move>();
-        for (int i = 0; i < getHeight(); i++) {
-            int j = (i % 2 == 0) ? 1 : 0;
-            for (; j < getLength(); j += 2) {
-                if (checkers[i][j].getSide() == Turn.WHITE) {
-                    allNonForcedMovesForWhite.addAll(checkers[i][j].generateNonForcedMoves(this));
-                }
-            }
+    public void unmakeMove(UndoRecord undo) {
+        this.checkers[undo.destinationY][undo.destinationX] = NoChecker.getInstance();
+        for (int i = undo.capturedCount - 1; i >= 0; i--) {
+            this.checkers[undo.capturedY[i]][undo.capturedX[i]] = undo.capturedCheckers[i];
+            undo.capturedCheckers[i] = null;
         }
-        return allNonForcedMovesForWhite;
+        undo.movedChecker.getCoordinates().setLocation(undo.sourceX, undo.sourceY);
+        this.checkers[undo.sourceY][undo.sourceX] = undo.movedChecker;
+        undo.movedChecker = null;
+        this.whites = undo.whites;
+        this.reds = undo.reds;
+        this.kings = undo.kings;
+        this.hash = undo.hash;
+        this.score = undo.score;
+        this.whiteCheckersCount = undo.whiteCheckersCount;
+        this.redCheckersCount = undo.redCheckersCount;
+        this.stalemateCounter = undo.stalemateCounter;
+        this.lastCheckersCount = undo.lastCheckersCount;
     }
 
-    public List<Move> generateForcedRedMoves() {
-        List<Move> forcedMovesForRed = new LinkedList<Move>();
-        for (int i = 0; i < getHeight(); i++) {
-            int j = (i % 2 == 0) ? 1 : 0;
-            for (; j < getLength(); j += 2) {
-                if (checkers[i][j].getSide() == Turn.RED) {
-                    forcedMovesForRed.addAll(checkers[i][j].generateForcedMoves(this));
-                }
-            }
+    /**
+     * Adds jumps of the side to move, in the order used by the checkers.
+     */
+    public void generateForcedMoves(Turn player, MoveList moves) {
+        if (player == Turn.RED) {
+            sources[DOWN_RIGHT] = captureSources(reds, whites, DOWN_RIGHT);
+            sources[DOWN_LEFT] = captureSources(reds, whites, DOWN_LEFT);
+            sources[UP_RIGHT] = captureSources(reds & kings, whites, UP_RIGHT);
+            sources[UP_LEFT] = captureSources(reds & kings, whites, UP_LEFT);
+            collectMoves(FORCED_RED_ORDER, 2, moves);
+        } else {
+            sources[UP_RIGHT] = captureSources(whites, reds, UP_RIGHT);
+            sources[UP_LEFT] = captureSources(whites, reds, UP_LEFT);
+            sources[DOWN_RIGHT] = captureSources(whites & kings, reds, DOWN_RIGHT);
+            sources[DOWN_LEFT] = captureSources(whites & kings, reds, DOWN_LEFT);
+            collectMoves(WHITE_ORDER, 2, moves);
         }
-        return forcedMovesForRed;
     }
 
-    public List<Move> generateNonForcedRedMoves() {
-        List<Move> allNonForcedMovesForRed = new LinkedList<Move>();
-        for (int i = 0; i < getHeight(); i++) {
-            int j = (i % 2 == 0) ? 1 : 0;
-            for (; j < getLength(); j += 2) {
-                if (checkers[i][j].getSide() == Turn.RED) {
-                    allNonForcedMovesForRed.addAll(checkers[i][j].generateNonForcedMoves(this));
-                }
-            }
+    /**
+     * Adds jumps of the checker standing on given square.
+     */
+    public void generateForcedMoves(int square, MoveList moves) {
+        int checker = 1 << square;
+        if ((whites & checker) != 0) {
+            sources[UP_RIGHT] = captureSources(checker, reds, UP_RIGHT);
+            sources[UP_LEFT] = captureSources(checker, reds, UP_LEFT);
+            sources[DOWN_RIGHT] = captureSources(checker & kings, reds, DOWN_RIGHT);
+            sources[DOWN_LEFT] = captureSources(checker & kings, reds, DOWN_LEFT);
+            collectMoves(WHITE_ORDER, 2, moves);
+        } else if ((reds & checker) != 0) {
+            sources[DOWN_RIGHT] = captureSources(checker, whites, DOWN_RIGHT);
+            sources[DOWN_LEFT] = captureSources(checker, whites, DOWN_LEFT);
+            sources[UP_RIGHT] = captureSources(checker & kings, whites, UP_RIGHT);
+            sources[UP_LEFT] = captureSources(checker & kings, whites, UP_LEFT);
+            collectMoves(FORCED_RED_ORDER, 2, moves);
+        }
+    }
+
+    /**
+     * Adds simple (non capturing) moves of the side to move, in the order used
+     * by the checkers.
+     */
+    public void generateNonForcedMoves(Turn player, MoveList moves) {
+        if (player == Turn.RED) {
+            sources[DOWN_LEFT] = stepSources(reds, DOWN_LEFT);
+            sources[DOWN_RIGHT] = stepSources(reds, DOWN_RIGHT);
+            sources[UP_LEFT] = stepSources(reds & kings, UP_LEFT);
+            sources[UP_RIGHT] = stepSources(reds & kings, UP_RIGHT);
+            collectMoves(NON_FORCED_RED_ORDER, 1, moves);
+        } else {
+            sources[UP_RIGHT] = stepSources(whites, UP_RIGHT);
+            sources[UP_LEFT] = stepSources(whites, UP_LEFT);
+            sources[DOWN_RIGHT] = stepSources(whites & kings, DOWN_RIGHT);
+            sources[DOWN_LEFT] = stepSources(whites & kings, DOWN_LEFT);
+            collectMoves(WHITE_ORDER, 1, moves);
         }
-        return allNonForcedMovesForRed;
+    }
+
+    public List<Move> generateForcedWhiteMoves() {
+        MoveList moves = new MoveList();
+        generateForcedMoves(Turn.WHITE, moves);
+        return toMoves(moves);
+    }
+
+    public List<Move> generateNonForcedWhiteMoves() {
+        MoveList moves = new MoveList();
+        generateNonForcedMoves(Turn.WHITE, moves);
+        return toMoves(moves);
+    }
+
+    public List<Move> generateForcedRedMoves() {
+        MoveList moves = new MoveList();
+        generateForcedMoves(Turn.RED, moves);
+        return toMoves(moves);
+    }
+
+    public List<Move> generateNonForcedRedMoves() {
+        MoveList moves = new MoveList();
+        generateNonForcedMoves(Turn.RED, moves);
+        return toMoves(moves);
     }
 
     public boolean isFinished() {
         return redCheckersCount == 0 || whiteCheckersCount == 0;
     }
 
+    /**
+     * @return true if the player can neither step nor jump, checked on the
+     * bitboards without generating any moves
+     */
     public boolean isBlocked(Turn turn) {
-        List<LinkedList<Move>> possibleMoveSeq = new Computer(this, 2, turn).expandMoves(new Board(this), turn);
-        return possibleMoveSeq.isEmpty();
+        int own = (turn == Turn.RED) ? reds : whites;
+        int enemies = (turn == Turn.RED) ? whites : reds;
+        int forward = (turn == Turn.RED) ? DOWN_LEFT : UP_LEFT;
+        int empty = getEmpty();
+        for (int direction = UP_LEFT; direction <= DOWN_RIGHT; direction++) {
+            int movers = (direction & DOWN_LEFT) == forward ? own : own & kings;
+            int targets = neighbours(empty, opposite(direction));
+            if ((movers & (targets | neighbours(targets & enemies, opposite(direction)))) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the game can end by the no progress rule within given
+     * number of plies
+     */
+    public boolean isNoProgressWithin(int plies) {
+        return stalemateCounter + plies > maxRoundsWithoutProgress;
     }
 
     public boolean noProgress() {
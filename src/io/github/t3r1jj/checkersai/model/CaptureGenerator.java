@@ -0,0 +1,94 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model;
+
+/**
+ * Generates complete jump sequences without touching the board. Each chain
+ * is walked in place on the bitboards with a fixed depth stack and emitted as
+ * a single packed move (see {@link Moves}). Sequences come in the same order
+ * as jumping one step at a time with the checker classes, a pawn reaching the
+ * last row keeps on jumping as a king.
+ */
+public class CaptureGenerator {
+
+    private static final int MAX_JUMPS = Integer.SIZE;
+
+    private final Squares table;
+    private final int[] squares = new int[MAX_JUMPS + 1];
+    private final int[] directions = new int[MAX_JUMPS + 1];
+    private final int[] captured = new int[MAX_JUMPS + 1];
+    private final int[] paths = new int[MAX_JUMPS + 1];
+    private final boolean[] kings = new boolean[MAX_JUMPS + 1];
+    private final boolean[] continued = new boolean[MAX_JUMPS + 1];
+
+    public CaptureGenerator(int size) {
+        this.table = Squares.forSize(size);
+    }
+
+    public void generate(Board board, Turn player, MoveList moves) {
+        generate(board.getWhites(), board.getReds(), board.getKings(), player, moves);
+    }
+
+    /**
+     * Adds every complete jump sequence of the player to the list.
+     */
+    public void generate(int whites, int reds, int kingsMask, Turn player, MoveList moves) {
+        boolean white = player == Turn.WHITE;
+        int own = white ? whites : reds;
+        int enemies = white ? reds : whites;
+        int[] order = white ? Board.WHITE_ORDER : Board.FORCED_RED_ORDER;
+        int promotionRow = white ? 0 : table.getSize() - 1;
+        for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int source = Integer.numberOfTrailingZeros(pieces);
+            int occupied = (whites | reds) & ~(1 << source);
+            boolean king = (kingsMask & (1 << source)) != 0;
+            int level = 0;
+            squares[0] = source;
+            directions[0] = 0;
+            captured[0] = 0;
+            paths[0] = 0;
+            kings[0] = king;
+            continued[0] = false;
+            while (level >= 0) {
+                int square = squares[level];
+                if (directions[level] == (kings[level] ? 4 : 2)) {
+                    if (level > 0 && !continued[level]) {
+                        moves.add(Moves.create(source, square, captured[level], kings[level] && !king, paths[level]));
+                    }
+                    level--;
+                    continue;
+                }
+                int direction = order[directions[level]++];
+                int landing = table.getLanding(square, direction);
+                if (landing < 0) {
+                    continue;
+                }
+                int jumped = 1 << table.getNeighbour(square, direction);
+                if ((enemies & ~captured[level] & jumped) == 0 || ((occupied & ~captured[level]) & (1 << landing)) != 0) {
+                    continue;
+                }
+                continued[level] = true;
+                level++;
+                squares[level] = landing;
+                directions[level] = 0;
+                captured[level] = captured[level - 1] | jumped;
+                paths[level] = paths[level - 1] | (level <= Moves.MAX_PATH ? direction << (2 * (level - 1)) : 0);
+                kings[level] = kings[level - 1] || table.getY(landing) == promotionRow;
+                continued[level] = false;
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ package io.github.t3r1jj.checkersai.model;
 import io.github.t3r1jj.checkersai.model.ai.EvaluatorConfig;
 import io.github.t3r1jj.checkersai.model.ai.Statistics;
 import io.github.t3r1jj.checkersai.model.ai.Computer;
+import io.github.t3r1jj.checkersai.model.ai.LazySmpComputer;
 import io.github.t3r1jj.checkersai.model.checker.CheckersOwner;
 import io.github.t3r1jj.checkersai.ui.UI;
 import java.io.FileInputStream;
@@ -55,6 +56,14 @@ public class Game {
         if (this.player != null) {
             this.player.setIsGameStopped(stopped);
         }
+        if (stopped) {
+            if (computerWhite != null) {
+                computerWhite.cancel();
+            }
+            if (computerRed != null) {
+                computerRed.cancel();
+            }
+        }
     }
 
     public boolean isStopIntervals() {
@@ -103,10 +112,16 @@ public class Game {
         } else {
             List<Move> resultantMoveSeq = new LinkedList<Move>();
             int predictedScore = computerWhite.makeNextWhiteMoves(resultantMoveSeq);
+            if (stopped) {
+                return;
+            }
             ui.printDataInfo(Statistics.MOVES_COUNT + ". White computer's move was: ");
             ui.printMoves(resultantMoveSeq);
-            ui.printDataInfo("Prediction depth = " + computerWhite.getMaxDepth() + ", Prediction score: " + predictedScore + "\n");
+            ui.printDataInfo("Prediction depth = " + computerWhite.getCompletedDepth() + ", Prediction score: " + predictedScore + "\n");
             ui.printDataInfo("Current board score for white: " + computerWhite.getEvaluator().evaluateBoard(board, Turn.WHITE) + "\n");
+            if (redOwner.equals(CheckersOwner.HUMAN) && board.getConfig().isPonder()) {
+                computerWhite.startPondering();
+            }
         }
     }
 
@@ -122,10 +137,16 @@ public class Game {
         } else {
             List<Move> resultantMoveSeq = new LinkedList<Move>();
             int predictedScore = computerRed.makeNextRedMoves(resultantMoveSeq);
+            if (stopped) {
+                return;
+            }
             ui.printDataInfo(Statistics.MOVES_COUNT + ". Red computer's move was: ");
             ui.printMoves(resultantMoveSeq);
-            ui.printDataInfo("Prediction depth = " + computerRed.getMaxDepth() + ", Prediction score: " + predictedScore + "\n");
+            ui.printDataInfo("Prediction depth = " + computerRed.getCompletedDepth() + ", Prediction score: " + predictedScore + "\n");
             ui.printDataInfo("Current board score for red: " + computerRed.getEvaluator().evaluateBoard(board, Turn.RED) + "\n");
+            if (whiteOwner.equals(CheckersOwner.HUMAN) && board.getConfig().isPonder()) {
+                computerRed.startPondering();
+            }
         }
     }
 
@@ -225,19 +246,29 @@ public class Game {
                 ui.printCheckers(board);
             }
         }
+        stopPondering();
+    }
+
+    private void stopPondering() {
+        if (computerWhite != null) {
+            computerWhite.stopPondering();
+        }
+        if (computerRed != null) {
+            computerRed.stopPondering();
+        }
     }
 
     private void initOwners(char decision) {
         switch (decision) {
             case 'w':
                 player = new Player(board, ui);
-                computerRed = new Computer(board, ui.getRedDepth(), Turn.RED);
+                computerRed = createComputer(ui.getRedDepth(), Turn.RED);
                 whiteOwner = CheckersOwner.HUMAN;
                 redOwner = CheckersOwner.COMPUTER;
                 break;
             case 'r':
                 player = new Player(board, ui);
-                computerWhite = new Computer(board, ui.getWhiteDepth(), Turn.WHITE);
+                computerWhite = createComputer(ui.getWhiteDepth(), Turn.WHITE);
                 whiteOwner = CheckersOwner.COMPUTER;
                 redOwner = CheckersOwner.HUMAN;
                 break;
@@ -247,14 +278,21 @@ public class Game {
                 redOwner = CheckersOwner.HUMAN;
                 break;
             case 'a':
-                computerWhite = new Computer(board, ui.getWhiteDepth(), Turn.WHITE);
-                computerRed = new Computer(board, ui.getRedDepth(), Turn.RED);
+                computerWhite = createComputer(ui.getWhiteDepth(), Turn.WHITE);
+                computerRed = createComputer(ui.getRedDepth(), Turn.RED);
                 whiteOwner = CheckersOwner.COMPUTER;
                 redOwner = CheckersOwner.COMPUTER;
                 break;
         }
     }
 
+    private Computer createComputer(int depth, Turn owner) {
+        if ("lazy-smp".equals(board.getConfig().getEngine())) {
+            return new LazySmpComputer(board, depth, owner);
+        }
+        return new Computer(board, depth, owner);
+    }
+
     public Board getBoard() {
         return board;
     }
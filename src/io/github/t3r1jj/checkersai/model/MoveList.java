@@ -0,0 +1,85 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer of packed moves (see {@link Moves}), meant to be allocated
+ * once per search ply.
+ */
+public class MoveList {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] moves;
+    // Ordering scores of the moves, see sort()
+    private int[] scores;
+    private int size;
+
+    public MoveList() {
+        this.moves = new long[DEFAULT_CAPACITY];
+        this.scores = new int[DEFAULT_CAPACITY];
+    }
+
+    public void add(long move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, 2 * size);
+            scores = Arrays.copyOf(scores, 2 * size);
+        }
+        scores[size] = 0;
+        moves[size++] = move;
+    }
+
+    public void setScore(int index, int score) {
+        scores[index] = score;
+    }
+
+    /**
+     * Sorts the moves by descending score, moves of equal score keep their
+     * order.
+     */
+    public void sort() {
+        for (int i = 1; i < size; i++) {
+            long move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    public long get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
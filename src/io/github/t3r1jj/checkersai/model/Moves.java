@@ -0,0 +1,88 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model;
+
+/**
+ * Packed move encoding used by the search. A move (or a whole jump sequence)
+ * is stored in a long: bits 0-4 hold the source square, bits 5-9 the
+ * destination square, bit 10 the promotion flag, bits 11-30 the directions of
+ * the first jumps (2 bits each) and bits 32-63 the mask of captured squares.
+ * Squares and directions are the ones of {@link Board}.
+ */
+public final class Moves {
+
+    public static final long NONE = 0L;
+    /**
+     * Number of jumps whose directions fit in the move, the rest of a longer
+     * sequence has to be found again from the captured squares.
+     */
+    public static final int MAX_PATH = 10;
+
+    private static final int SQUARE_BITS = 5;
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+    private static final long PROMOTION = 1L << (2 * SQUARE_BITS);
+    private static final int PATH_SHIFT = 2 * SQUARE_BITS + 1;
+    private static final int PATH_MASK = (1 << (2 * MAX_PATH)) - 1;
+
+    private Moves() {
+    }
+
+    public static long create(int source, int destination, int captured, boolean promotion) {
+        return create(source, destination, captured, promotion, 0);
+    }
+
+    /**
+     * @param path directions of the jumps, 2 bits per jump starting from the
+     * least significant ones
+     */
+    public static long create(int source, int destination, int captured, boolean promotion, int path) {
+        long move = source | (destination << SQUARE_BITS) | ((long) (path & PATH_MASK) << PATH_SHIFT)
+                | ((long) captured << Integer.SIZE);
+        return promotion ? move | PROMOTION : move;
+    }
+
+    public static int getSource(long move) {
+        return (int) move & SQUARE_MASK;
+    }
+
+    public static int getDestination(long move) {
+        return (int) (move >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    public static int getCaptured(long move) {
+        return (int) (move >>> Integer.SIZE);
+    }
+
+    public static boolean isCapture(long move) {
+        return getCaptured(move) != 0;
+    }
+
+    public static boolean isPromotion(long move) {
+        return (move & PROMOTION) != 0;
+    }
+
+    public static int getJumpCount(long move) {
+        return Integer.bitCount(getCaptured(move));
+    }
+
+    /**
+     * @return direction of the jump with given index, valid for indices lower
+     * than {@link #MAX_PATH}
+     */
+    public static int getJumpDirection(long move, int jump) {
+        return (int) (move >>> (PATH_SHIFT + 2 * jump)) & 3;
+    }
+}
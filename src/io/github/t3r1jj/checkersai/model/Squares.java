@@ -0,0 +1,169 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lookup tables of the playable squares of a board of given size, shared by
+ * all boards of that size. Square index is y * (size / 2) + x / 2, tables
+ * hold -1 where the neighbour or the landing square is outside of the board.
+ */
+public final class Squares {
+
+    private static final int[] DX = {-1, 1, -1, 1};
+    private static final int[] DY = {-1, -1, 1, 1};
+    private static final Map<Integer, Squares> TABLES = new HashMap<Integer, Squares>();
+
+    private final int size;
+    private final int rowWidth;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[][] neighbours;
+    private final int[][] landings;
+    /**
+     * Shift masks of the bitboards, meaningful only if the squares fit in an
+     * int.
+     */
+    private final int allSquares;
+    private final int evenRows;
+    private final int leftEdge;
+    private final int rightEdge;
+    /**
+     * Evaluation masks of the rows and of the middle rows without the edges.
+     */
+    private final int[] rows;
+    private final int centre;
+
+    private Squares(int size) {
+        this.size = size;
+        this.rowWidth = size / 2;
+        int count = size * rowWidth;
+        xs = new int[count];
+        ys = new int[count];
+        neighbours = new int[4][count];
+        landings = new int[4][count];
+        int squares = 0;
+        int even = 0;
+        int left = 0;
+        int right = 0;
+        int middle = 0;
+        rows = new int[size];
+        for (int square = 0; square < count; square++) {
+            int y = square / rowWidth;
+            int x = 2 * (square % rowWidth) + (y % 2 == 0 ? 1 : 0);
+            xs[square] = x;
+            ys[square] = y;
+            for (int direction = 0; direction < 4; direction++) {
+                neighbours[direction][square] = find(x + DX[direction], y + DY[direction]);
+                landings[direction][square] = find(x + 2 * DX[direction], y + 2 * DY[direction]);
+            }
+            if (square < Integer.SIZE) {
+                squares |= 1 << square;
+                if (y % 2 == 0) {
+                    even |= 1 << square;
+                    if (x == size - 1) {
+                        right |= 1 << square;
+                    }
+                } else if (x == 0) {
+                    left |= 1 << square;
+                }
+                rows[y] |= 1 << square;
+                if ((y == size / 2 - 1 || y == size / 2) && x > 0 && x < size - 1) {
+                    middle |= 1 << square;
+                }
+            }
+        }
+        this.allSquares = squares;
+        this.evenRows = even;
+        this.leftEdge = left;
+        this.rightEdge = right;
+        this.centre = middle;
+    }
+
+    public static synchronized Squares forSize(int size) {
+        Squares squares = TABLES.get(size);
+        if (squares == null) {
+            squares = new Squares(size);
+            TABLES.put(size, squares);
+        }
+        return squares;
+    }
+
+    private int find(int x, int y) {
+        if (x < 0 || y < 0 || x >= size || y >= size) {
+            return -1;
+        }
+        return getSquare(x, y);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCount() {
+        return xs.length;
+    }
+
+    public int getSquare(int x, int y) {
+        return y * rowWidth + x / 2;
+    }
+
+    public int getX(int square) {
+        return xs[square];
+    }
+
+    public int getY(int square) {
+        return ys[square];
+    }
+
+    public int getNeighbour(int square, int direction) {
+        return neighbours[direction][square];
+    }
+
+    public int getLanding(int square, int direction) {
+        return landings[direction][square];
+    }
+
+    public int getAllSquares() {
+        return allSquares;
+    }
+
+    public int getEvenRows() {
+        return evenRows;
+    }
+
+    public int getLeftEdge() {
+        return leftEdge;
+    }
+
+    public int getRightEdge() {
+        return rightEdge;
+    }
+
+    public int getRowWidth() {
+        return rowWidth;
+    }
+
+    public int getRow(int y) {
+        return rows[y];
+    }
+
+    public int getCentre() {
+        return centre;
+    }
+}
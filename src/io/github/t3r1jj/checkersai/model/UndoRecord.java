@@ -0,0 +1,54 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model;
+
+import io.github.t3r1jj.checkersai.model.checker.Checker;
+
+/**
+ * State needed by {@link Board#unmakeMove(UndoRecord)} to take back a move
+ * sequence made in place. Records are meant to be allocated once per search
+ * ply and reused.
+ */
+public class UndoRecord {
+
+    private static final int MAX_CAPTURES = 32;
+
+    int whites;
+    int reds;
+    int kings;
+    long hash;
+    int score;
+    int whiteCheckersCount;
+    int redCheckersCount;
+    int stalemateCounter;
+    int lastCheckersCount;
+    Checker movedChecker;
+    int sourceX;
+    int sourceY;
+    int destinationX;
+    int destinationY;
+    final Checker[] capturedCheckers = new Checker[MAX_CAPTURES];
+    final int[] capturedX = new int[MAX_CAPTURES];
+    final int[] capturedY = new int[MAX_CAPTURES];
+    int capturedCount;
+
+    void addCaptured(Checker checker, int x, int y) {
+        capturedCheckers[capturedCount] = checker;
+        capturedX[capturedCount] = x;
+        capturedY[capturedCount] = y;
+        capturedCount++;
+    }
+}
@@ -0,0 +1,50 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model;
+
+import java.util.Random;
+
+/**
+ * Random keys of the Zobrist position hash kept by {@link Board}. The seed is
+ * fixed so that hashes stay the same between runs and can be stored.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x2015C4EC6E55L;
+    private static final long[][] PIECES = new long[4][Integer.SIZE];
+    private static final long RED_TO_MOVE;
+
+    static {
+        Random random = new Random(SEED);
+        for (long[] keys : PIECES) {
+            for (int square = 0; square < keys.length; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        RED_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long getPieceKey(boolean white, boolean king, int square) {
+        return PIECES[(white ? 0 : 2) + (king ? 1 : 0)][square];
+    }
+
+    public static long getSideKey(Turn player) {
+        return (player == Turn.RED) ? RED_TO_MOVE : 0;
+    }
+}
@@ -16,65 +16,637 @@
 package io.github.t3r1jj.checkersai.model.ai;
 
 import io.github.t3r1jj.checkersai.model.Board;
+import io.github.t3r1jj.checkersai.model.CaptureGenerator;
 import io.github.t3r1jj.checkersai.model.Move;
+import io.github.t3r1jj.checkersai.model.MoveList;
+import io.github.t3r1jj.checkersai.model.Moves;
 import io.github.t3r1jj.checkersai.model.Turn;
+import io.github.t3r1jj.checkersai.model.UndoRecord;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Computer {
 
+    /**
+     * Depth cap used when no max depth is set.
+     */
+    private static final int MAX_SEARCH_DEPTH = 64;
+    private static final int TIME_CHECK_INTERVAL = 1024;
     private final Turn owner;
     private final Evaluator evaluator;
     private final Board board;
     private final int maxDepth;
+    // Set by the game thread while a ponder search runs
+    private volatile long timeLimit;
+    private final int quiescenceDepth;
+    private final int threads;
+    private final UndoRecord[] undoRecords;
+    private final MoveList[] moveLists;
+    private final CaptureGenerator captureGenerator;
+    private final TranspositionTable transpositionTable;
+    private final OpeningBook book;
+    private final EndgameDatabase endgames;
+    private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+    // Two quiet cutoff moves per ply and cutoff counts of source/destination,
+    // aged rather than cleared between the searches
+    private final long[][] killers;
+    private final int[][] history;
+    // Best line of the previous search and hashes of its positions
+    private final long[] pvMoves;
+    private final long[] pvHashes;
+    private int pvLength;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long endgameHits;
+    private long bestRootMove;
+    private long iterationBestMove;
+    private long nodesExpanded;
+    private long quiescenceNodes;
+    private int searchDepth;
+    private int completedDepth;
+    private boolean depthLimitReached;
+    private volatile long deadline;
+    private boolean aborted;
+    private boolean cancelledSearch;
+    private volatile boolean stopped;
+    // Shared with the workers, helpers and ponderer of this computer
+    private AtomicBoolean cancelled = new AtomicBoolean();
+    // Lazy SMP helpers use deeper table entries and rotate the root moves
+    private boolean deeperCutoffs;
+    private int rootOffset;
+    private ForkJoinPool pool;
+    // Copies searching root moves in the pool, kept between the searches
+    private final Queue<Computer> workers = new ConcurrentLinkedQueue<Computer>();
+    private final List<Computer> allWorkers = new LinkedList<Computer>();
+    // Search of the position after the predicted reply, run on the opponent's time
+    private volatile Computer ponderer;
+    // Kept between the ponder searches
+    private Computer ponderSearcher;
+    private Thread ponderThread;
+    private long ponderHash;
+    private long ponderStart;
+    private int ponderScore;
 
+    /**
+     * @param maxDepth depth cap of the iterative deepening, no cap if it is
+     * not positive
+     */
     public Computer(Board board, int maxDepth, Turn owner) {
+        this(board, maxDepth, owner, new TranspositionTable(board.getConfig().getHashMb()), board.getConfig().getThreads());
+    }
+
+    /**
+     * @param threads number of threads searching the root moves
+     */
+    Computer(Board board, int maxDepth, Turn owner, TranspositionTable transpositionTable, int threads) {
         this.board = board;
-        this.maxDepth = maxDepth;
+        this.maxDepth = (maxDepth > 0) ? maxDepth : MAX_SEARCH_DEPTH;
         this.owner = owner;
-        evaluator = new Evaluator(board.getConfig());
+        evaluator = createEvaluator(board);
         evaluator.setOwner(owner);
+        timeLimit = (owner == Turn.WHITE) ? board.getConfig().getWhiteTimeMs() : board.getConfig().getRedTimeMs();
+        quiescenceDepth = Math.max(0, board.getConfig().getQuiescenceDepth());
+        this.threads = threads;
+        undoRecords = new UndoRecord[this.maxDepth + quiescenceDepth + 1];
+        moveLists = new MoveList[this.maxDepth + quiescenceDepth + 1];
+        for (int i = 0; i < undoRecords.length; i++) {
+            undoRecords[i] = new UndoRecord();
+            moveLists[i] = new MoveList();
+        }
+        captureGenerator = new CaptureGenerator(board.getLength());
+        this.transpositionTable = transpositionTable;
+        OpeningBook openingBook = OpeningBook.forFile(board.getConfig().getBookFile());
+        book = (openingBook != null && openingBook.getSize() == board.getLength()) ? openingBook : null;
+        endgames = (board.getLength() == 8)
+                ? EndgameDatabase.forDirectory(board.getConfig().getTablebaseDir(), board.getConfig().getTablebaseCacheMb())
+                : null;
+        killers = new long[this.maxDepth + 1][2];
+        int squares = board.getSquares().getCount();
+        history = new int[squares][squares];
+        pvMoves = new long[this.maxDepth + 1];
+        pvHashes = new long[this.maxDepth + 1];
+    }
+
+    private static Evaluator createEvaluator(Board board) {
+        PatternTable table = (board.getLength() == PatternTable.SIZE)
+                ? PatternTable.forFile(board.getConfig().getPatternFile())
+                : null;
+        int cacheKilobytes = board.getConfig().getEvalCacheKb();
+        return (table != null)
+                ? new PatternEvaluator(board.getParameters(), cacheKilobytes, table)
+                : new Evaluator(board.getParameters(), cacheKilobytes);
     }
 
     public int getMaxDepth() {
         return this.maxDepth;
     }
 
+    /**
+     * @return depth of the last completed iteration of the previous search
+     */
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+
     public Evaluator getEvaluator() {
         return this.evaluator;
     }
 
-    public int makeNextWhiteMoves(List<Move> resultantMoveSeq) {
-        int predictedScore;
-        if (owner.equals(Turn.WHITE)) {
-            predictedScore = alphaBetaWhite(board, Turn.WHITE, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, resultantMoveSeq);
-        } else {
-            predictedScore = alphaBetaRed(board, Turn.WHITE, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, resultantMoveSeq);
+    Board getBoard() {
+        return board;
+    }
+
+    Turn getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return best move of the previous search
+     */
+    long getBestMove() {
+        return bestRootMove;
+    }
+
+    TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    void setDeeperCutoffs(boolean deeperCutoffs) {
+        this.deeperCutoffs = deeperCutoffs;
+    }
+
+    void setRootOffset(int rootOffset) {
+        this.rootOffset = rootOffset;
+    }
+
+    /**
+     * Makes a running search, with its root workers, abort at its next clock
+     * check.
+     */
+    void stop() {
+        stopped = true;
+        synchronized (allWorkers) {
+            for (Computer worker : allWorkers) {
+                worker.stopped = true;
+            }
         }
+    }
+
+    /**
+     * Gives a running search, including its root workers, a time limit.
+     */
+    private void setTimeControl(long deadline, long timeLimit) {
+        this.deadline = deadline;
+        this.timeLimit = timeLimit;
+        synchronized (allWorkers) {
+            for (Computer worker : allWorkers) {
+                worker.deadline = deadline;
+                worker.timeLimit = timeLimit;
+            }
+        }
+    }
 
+    /**
+     * Clears the stop request of a kept helper before its next search.
+     */
+    void resume() {
+        stopped = false;
+    }
+
+    void shareCancellation(Computer computer) {
+        cancelled = computer.cancelled;
+    }
+
+    /**
+     * Aborts the running search (and pondering) of this computer within a
+     * few thousand nodes and every later one at once. Can be called from any
+     * thread.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * @return true if the previous search was cancelled, its move is the best
+     * one found so far or none at all
+     */
+    public boolean isAborted() {
+        return cancelledSearch;
+    }
+
+    /**
+     * @param resultantMoveSeq gets the moves made, none if the search was
+     * cancelled before any move was searched
+     */
+    public int makeNextWhiteMoves(List<Move> resultantMoveSeq) {
+        int predictedScore = search(Turn.WHITE);
+        resultantMoveSeq.addAll(toMoveSequence(board, bestRootMove));
         for (Move m : resultantMoveSeq) {
             board.genericWhiteMove(m);
         }
-        Statistics.MOVES_COUNT++;
+        if (!resultantMoveSeq.isEmpty()) {
+            Statistics.MOVES_COUNT++;
+        }
         return predictedScore;
     }
 
+    /**
+     * @param resultantMoveSeq gets the moves made, none if the search was
+     * cancelled before any move was searched
+     */
     public int makeNextRedMoves(List<Move> resultantMoveSeq) {
+        int predictedScore = search(Turn.RED);
+        resultantMoveSeq.addAll(toMoveSequence(board, bestRootMove));
+        for (Move m : resultantMoveSeq) {
+            board.genericRedMove(m);
+        }
+        if (!resultantMoveSeq.isEmpty()) {
+            Statistics.MOVES_COUNT++;
+        }
+        return predictedScore;
+    }
+
+    /**
+     * Iterative deepening up to max depth. With a time limit set, the search
+     * is aborted when the time runs out (or when cancelled) and the best move
+     * found so far is used: of the aborted iteration if one of its root moves
+     * was completed, otherwise of the last completed iteration. A new
+     * iteration is not started after half of the time has passed, as it would
+     * hardly complete.
+     * Moves of the opening book are played without a search.
+     */
+    int search(Turn player) {
+        stopped = false;
+        cancelledSearch = cancelled.get();
+        if (cancelledSearch) {
+            bestRootMove = Moves.NONE;
+            completedDepth = 0;
+            return 0;
+        }
+        boolean pondered = ponderThread != null;
         int predictedScore;
+        if (pondered && finishPondering(player)) {
+            predictedScore = ponderScore;
+        } else {
+            int bookEntry = findBookEntry(player);
+            if (bookEntry >= 0) {
+                bestRootMove = book.getMove(bookEntry);
+                completedDepth = book.getDepth(bookEntry);
+                predictedScore = book.getScore(bookEntry);
+                Statistics.BOOK_MOVES++;
+            } else {
+                predictedScore = searchTree(player);
+            }
+        }
+        cancelledSearch = cancelled.get();
+        return predictedScore;
+    }
+
+    /**
+     * Results of the previous searches are kept: the table starts a new
+     * generation and the best line found before is tried first.
+     */
+    private int searchTree(Turn player) {
+        prepare(System.nanoTime() + timeLimit * 1000000L);
+        transpositionTable.newSearch();
+        seedPrincipalVariation(player);
+        resetWorkers();
+        long hits = transpositionTable.getHits();
+        long misses = transpositionTable.getMisses();
+        long decompressions = (endgames != null) ? endgames.getDecompressions() : 0;
+        long decompressionTime = (endgames != null) ? endgames.getDecompressionTime() : 0;
+        startHelpers(player);
+        int predictedScore = iterate(player, 1);
+        stopHelpers();
+        for (Computer worker : allWorkers) {
+            addCounters(worker);
+        }
         if (owner.equals(Turn.WHITE)) {
-            predictedScore = alphaBetaWhite(board, Turn.RED, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, resultantMoveSeq);
+            Statistics.TOTAL_NODES_EXPANDED_FOR_WHITE_AI = Statistics.TOTAL_NODES_EXPANDED_FOR_WHITE_AI.add(BigInteger.valueOf(nodesExpanded));
         } else {
-            predictedScore = alphaBetaRed(board, Turn.RED, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, resultantMoveSeq);
+            Statistics.TOTAL_NODES_EXPANDED_FOR_RED_AI = Statistics.TOTAL_NODES_EXPANDED_FOR_RED_AI.add(BigInteger.valueOf(nodesExpanded));
+        }
+        Statistics.QUIESCENCE_NODES += quiescenceNodes;
+        Statistics.TRANSPOSITION_HITS += transpositionTable.getHits() - hits;
+        Statistics.TRANSPOSITION_MISSES += transpositionTable.getMisses() - misses;
+        Statistics.CUTOFFS += cutoffs;
+        Statistics.FIRST_MOVE_CUTOFFS += firstMoveCutoffs;
+        Statistics.TABLEBASE_HITS += endgameHits;
+        if (endgames != null) {
+            Statistics.TABLEBASE_DECOMPRESSIONS += endgames.getDecompressions() - decompressions;
+            Statistics.TABLEBASE_DECOMPRESSION_NS += endgames.getDecompressionTime() - decompressionTime;
+        }
+        if (evaluator.getCache() != null) {
+            Statistics.EVALUATION_CACHE_HITS += evaluator.getCache().getHits();
+            Statistics.EVALUATION_CACHE_MISSES += evaluator.getCache().getMisses();
+        }
+        savePrincipalVariation(player);
+        return predictedScore;
+    }
+
+    /**
+     * Makes the root workers of the previous searches, with their warm
+     * evaluation caches and buffers, ready for this one.
+     */
+    private void resetWorkers() {
+        workers.clear();
+        synchronized (allWorkers) {
+            for (Computer worker : allWorkers) {
+                worker.board.copyPosition(board);
+                worker.prepare(deadline);
+                worker.copyPrincipalVariation(this);
+                worker.stopped = stopped;
+                workers.add(worker);
+            }
         }
+    }
 
-        for (Move m : resultantMoveSeq) {
-            board.genericRedMove(m);
+    /**
+     * Keeps the part of the previous best line from the current position on.
+     * Its first move is searched first, but is not played unless searched.
+     */
+    private void seedPrincipalVariation(Turn player) {
+        long hash = board.getHash(player);
+        int start = 0;
+        while (start < pvLength && pvHashes[start] != hash) {
+            start++;
+        }
+        pvLength -= start;
+        System.arraycopy(pvMoves, start, pvMoves, 0, pvLength);
+        System.arraycopy(pvHashes, start, pvHashes, 0, pvLength);
+        if (pvLength > 0 && isLegal(player, pvMoves[0])) {
+            bestRootMove = pvMoves[0];
+        }
+    }
+
+    /**
+     * Follows the best moves stored in the table from the root, up to the
+     * completed depth.
+     */
+    private void savePrincipalVariation(Turn player) {
+        pvLength = 0;
+        Turn side = player;
+        long move = bestRootMove;
+        while (move != Moves.NONE && pvLength < completedDepth) {
+            pvHashes[pvLength] = board.getHash(side);
+            pvMoves[pvLength] = move;
+            board.makeMove(move, undoRecords[pvLength]);
+            pvLength++;
+            side = (side == Turn.WHITE) ? Turn.RED : Turn.WHITE;
+            if (transpositionTable.probe(board.getHash(side), entry) && isLegal(side, entry.move)) {
+                move = entry.move;
+            } else {
+                move = Moves.NONE;
+            }
+        }
+        for (int i = pvLength - 1; i >= 0; i--) {
+            board.unmakeMove(undoRecords[i]);
+        }
+    }
+
+    void copyPrincipalVariation(Computer other) {
+        pvLength = other.pvLength;
+        System.arraycopy(other.pvMoves, 0, pvMoves, 0, pvLength);
+        System.arraycopy(other.pvHashes, 0, pvHashes, 0, pvLength);
+    }
+
+    /**
+     * Resets the search state except for the transposition table, which may
+     * be shared. Killers are moved two plies up, as the previous search was
+     * made before the own move and the reply, and history is halved.
+     */
+    void prepare(long deadline) {
+        this.deadline = deadline;
+        bestRootMove = Moves.NONE;
+        completedDepth = 0;
+        aborted = false;
+        for (int depth = 0; depth < killers.length; depth++) {
+            if (depth + 2 < killers.length) {
+                System.arraycopy(killers[depth + 2], 0, killers[depth], 0, 2);
+            } else {
+                Arrays.fill(killers[depth], Moves.NONE);
+            }
+        }
+        for (int[] sourceHistory : history) {
+            for (int i = 0; i < sourceHistory.length; i++) {
+                sourceHistory[i] /= 2;
+            }
+        }
+        nodesExpanded = 0;
+        quiescenceNodes = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        endgameHits = 0;
+        if (evaluator.getCache() != null) {
+            evaluator.getCache().resetCounters();
+        }
+    }
+
+    /**
+     * Runs the iterations starting at given depth.
+     *
+     * @return score of the last completed iteration
+     */
+    int iterate(Turn player, int firstDepth) {
+        int predictedScore = 0;
+        for (searchDepth = firstDepth; searchDepth <= maxDepth; searchDepth++) {
+            iterationBestMove = Moves.NONE;
+            depthLimitReached = false;
+            int score = (threads > 1) ? parallelSearch(player) : negamax(board, player, 0, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+            if (player != owner) {
+                score = -score;
+            }
+            if (aborted) {
+                if (iterationBestMove != Moves.NONE) {
+                    bestRootMove = iterationBestMove;
+                } else if (completedDepth == 0) {
+                    bestRootMove = Moves.NONE;
+                }
+                break;
+            }
+            predictedScore = score;
+            bestRootMove = iterationBestMove;
+            completedDepth = searchDepth;
+            if (!depthLimitReached || (timeLimit > 0 && System.nanoTime() - deadline + timeLimit * 500000L > 0)) {
+                break;
+            }
         }
-        Statistics.MOVES_COUNT++;
         return predictedScore;
     }
 
+    /**
+     * Starts searching the position after the reply expected from the
+     * opponent, taken from the table, in the background. The search runs
+     * until the max depth or until the opponent moves.
+     */
+    public void startPondering() {
+        stopPondering();
+        Turn opponent = owner.equals(Turn.WHITE) ? Turn.RED : Turn.WHITE;
+        if (!transpositionTable.probe(board.getHash(opponent), entry) || !isLegal(opponent, entry.move)) {
+            return;
+        }
+        waitForPonderer();
+        if (ponderSearcher == null) {
+            ponderSearcher = createPonderer(new Board(board));
+            ponderSearcher.shareCancellation(this);
+        }
+        final Computer searcher = ponderSearcher;
+        Board ponderBoard = searcher.board;
+        ponderBoard.copyPosition(board);
+        ponderBoard.makeMove(entry.move, new UndoRecord());
+        ponderHash = ponderBoard.getHash(owner);
+        ponderStart = System.nanoTime();
+        searcher.resume();
+        searcher.copyPrincipalVariation(this);
+        searcher.timeLimit = 0;
+        if (threads > 1 && pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+        searcher.pool = pool;
+        ponderer = searcher;
+        ponderThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                ponderScore = searcher.searchTree(owner);
+            }
+        }, "Ponder " + owner);
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    /**
+     * Makes a running ponder search abort, its results stay in the table.
+     */
+    public void stopPondering() {
+        Computer searcher = ponderer;
+        if (searcher != null) {
+            searcher.stop();
+        }
+    }
+
+    /**
+     * Waits for a stopped ponder search whose result was not taken, so that
+     * the kept searcher can be reused.
+     */
+    private void waitForPonderer() {
+        if (ponderThread == null) {
+            return;
+        }
+        try {
+            ponderThread.join();
+        } catch (InterruptedException ex) {
+            // the searcher may still be running, a new one is made
+            ponderSearcher = null;
+            Thread.currentThread().interrupt();
+        }
+        ponderer = null;
+        ponderThread = null;
+    }
+
+    /**
+     * A computer of the same kind searching given board and sharing the
+     * table, made once and kept.
+     */
+    Computer createPonderer(Board board) {
+        return new Computer(board, maxDepth, owner, transpositionTable, threads);
+    }
+
+    /**
+     * @return index of the book entry of the position if its move is legal,
+     * otherwise -1
+     */
+    private int findBookEntry(Turn player) {
+        if (book == null) {
+            return -1;
+        }
+        int index = book.find(board.getHash(player));
+        return (index >= 0 && isLegal(player, book.getMove(index))) ? index : -1;
+    }
+
+    private boolean isLegal(Turn player, long move) {
+        MoveList moves = moveLists[0];
+        expandMoves(board, player, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the ponder search. If the opponent played the expected move,
+     * the search gets the time limit counted from the start of pondering and
+     * its result is taken.
+     *
+     * @return true if the result was taken
+     */
+    private boolean finishPondering(Turn player) {
+        Computer searcher = ponderer;
+        boolean hit = player.equals(owner) && board.getHash(player) == ponderHash;
+        if (hit) {
+            searcher.setTimeControl(ponderStart + timeLimit * 1000000L, timeLimit);
+        } else {
+            searcher.stop();
+        }
+        try {
+            ponderThread.join();
+        } catch (InterruptedException ex) {
+            searcher.stop();
+            ponderSearcher = null;
+            Thread.currentThread().interrupt();
+            hit = false;
+        }
+        ponderer = null;
+        ponderThread = null;
+        if (hit && searcher.bestRootMove != Moves.NONE) {
+            Statistics.PONDER_HITS++;
+            bestRootMove = searcher.bestRootMove;
+            completedDepth = searcher.completedDepth;
+            copyPrincipalVariation(searcher);
+            return true;
+        }
+        Statistics.PONDER_MISSES++;
+        return false;
+    }
+
+    /**
+     * Called before the main search starts, when the table has already
+     * started a new generation and the previous best line is seeded.
+     */
+    void startHelpers(Turn player) {
+    }
+
+    /**
+     * Called after the main search, helpers' counters have to be added
+     * before it returns.
+     */
+    void stopHelpers() {
+    }
+
+    void addCounters(Computer other) {
+        nodesExpanded += other.nodesExpanded;
+        quiescenceNodes += other.quiescenceNodes;
+        cutoffs += other.cutoffs;
+        firstMoveCutoffs += other.firstMoveCutoffs;
+        endgameHits += other.endgameHits;
+        if (evaluator.getCache() != null && other.evaluator.getCache() != null) {
+            evaluator.getCache().addCounters(other.evaluator.getCache());
+        }
+    }
+
 //01 function alphabeta(node, depth, α, β, maximizingPlayer)
 //02      if depth = 0 or node is a terminal node
 //03          return the heuristic value of node
@@ -94,227 +666,465 @@ public class Computer {
 //17              if β ≤ α
 //18                  break (* α cut-off *)
 //19          return v
-    // White max
-    private int alphaBetaWhite(Board board, Turn player, int depth, int alpha, int beta, List<Move> resultMoveSeq) {
-        Statistics.TOTAL_NODES_EXPANDED_FOR_WHITE_AI = Statistics.TOTAL_NODES_EXPANDED_FOR_WHITE_AI.add(BigInteger.ONE);
+    /**
+     * Negamax with principal variation search: the first move is searched
+     * with the full window, the rest with a null window and searched again
+     * only if they turn out better. Scores are from the point of view of the
+     * player to move.
+     */
+    private int negamax(Board board, Turn player, int depth, int alpha, int beta) {
+        nodesExpanded++;
+        if (isOutOfTime()) {
+            return 0;
+        }
+        if (depth > 0 && endgames != null && !board.noProgress()
+                && board.countWhites() + board.countReds() <= endgames.getMaxPieces()) {
+            int value = endgames.probe(board.getWhites(), board.getReds(), board.getKings(), player);
+            if (value >= 0) {
+                endgameHits++;
+                return getEndgameScore(value, player);
+            }
+        }
         if (!canExploreFurther(board, player, depth)) {
-            int value = evaluator.evaluateBoard(board, player);
-            return value;
+            return quiescence(board, player, depth, alpha, beta);
         }
+        long hash = board.getHash(player);
+        long hashMove = Moves.NONE;
+        if (transpositionTable.probe(hash, entry)) {
+            if (depth > 0 && !board.isNoProgressWithin(searchDepth - depth) && isTranspositionCutoff(depth, alpha, beta)) {
+                // the stored search may have reached its depth limit
+                depthLimitReached = true;
+                return entry.score;
+            }
+            hashMove = entry.move;
+        }
+        if (hashMove == Moves.NONE && depth < pvLength && pvHashes[depth] == hash) {
+            hashMove = pvMoves[depth];
+        }
+        int initialAlpha = alpha;
 
-        List<LinkedList<Move>> possibleMoveSeq = expandMoves(board, player);
-        List<Board> possibleBoardConf = getPossibleBoardConf(board, possibleMoveSeq, player);
-        List<Move> bestMoveSeq = null;
-
-        if (player == Turn.WHITE) {
-            for (int i = 0; i < possibleBoardConf.size(); i++) {
-                Board b = possibleBoardConf.get(i);
-                List<Move> moveSeq = possibleMoveSeq.get(i);
-
-                int value = alphaBetaWhite(b, Turn.RED, depth + 1, alpha, beta, resultMoveSeq);
+        MoveList possibleMoves = moveLists[depth];
+        expandMoves(board, player, possibleMoves);
+        orderMoves(possibleMoves, depth, hashMove);
+        UndoRecord undo = undoRecords[depth];
+        Turn opponent = (player == Turn.WHITE) ? Turn.RED : Turn.WHITE;
+        long bestMove = Moves.NONE;
 
-                if (value > alpha) {
-                    alpha = value;
-                    bestMoveSeq = moveSeq;
-                }
-                if (alpha > beta) {
-                    break;
+        for (int i = 0; i < possibleMoves.size(); i++) {
+            long move = possibleMoves.get(i);
+            board.makeMove(move, undo);
+            int value;
+            if (i == 0) {
+                value = -negamax(board, opponent, depth + 1, -beta, -alpha);
+            } else {
+                value = -negamax(board, opponent, depth + 1, -alpha - 1, -alpha);
+                if (value > alpha && value < beta && !aborted) {
+                    value = -negamax(board, opponent, depth + 1, -beta, -alpha);
                 }
             }
-            if (depth == 0 && bestMoveSeq != null) {
-                resultMoveSeq.addAll(bestMoveSeq);
+            board.unmakeMove(undo);
+            if (aborted) {
+                if (depth == 0 && bestMove != Moves.NONE) {
+                    iterationBestMove = bestMove;
+                }
+                return 0;
             }
 
-            return alpha;
-
-        } else { //Red's turn
-            for (int i = 0; i < possibleBoardConf.size(); i++) {
-                Board b = possibleBoardConf.get(i);
-                List<Move> moveSeq = possibleMoveSeq.get(i);
-
-                int value = alphaBetaWhite(b, Turn.WHITE, depth + 1, alpha, beta, resultMoveSeq);
-                if (value < beta) {
-                    bestMoveSeq = moveSeq;
-                    beta = value;
-                }
-                if (alpha > beta) {
-                    break;
-                }
+            if (value > alpha) {
+                alpha = value;
+                bestMove = move;
             }
-            if (depth == 0 && bestMoveSeq != null) {
-                resultMoveSeq.addAll(bestMoveSeq);
+            if (alpha >= beta) {
+                recordCutoff(move, depth, i);
+                break;
             }
-
-            return beta;
         }
-    }
-
-    private int alphaBetaRed(Board board, Turn player, int depth, int alpha, int beta, List<Move> resultMoveSeq) {
-        Statistics.TOTAL_NODES_EXPANDED_FOR_RED_AI = Statistics.TOTAL_NODES_EXPANDED_FOR_RED_AI.add(BigInteger.ONE);
-        if (!canExploreFurther(board, player, depth)) {
-            int value = evaluator.evaluateBoard(board, player);
-            return value;
+        if (depth == 0 && bestMove != Moves.NONE) {
+            iterationBestMove = bestMove;
         }
+        storeTransposition(board, hash, depth, alpha, initialAlpha, beta, bestMove);
 
-        List<LinkedList<Move>> possibleMoveSeq = expandMoves(board, player);
-        List<Board> possibleBoardConf = getPossibleBoardConf(board, possibleMoveSeq, player);
-        List<Move> bestMoveSeq = null;
-
-        if (player == Turn.RED) {
-            for (int i = 0; i < possibleBoardConf.size(); i++) {
-                Board b = possibleBoardConf.get(i);
-                List<Move> moveSeq = possibleMoveSeq.get(i);
-
-                int value = alphaBetaRed(b, Turn.WHITE, depth + 1, alpha, beta, resultMoveSeq);
-
-                if (value > alpha) {
-                    alpha = value;
-                    bestMoveSeq = moveSeq;
-                }
-                if (alpha > beta) {
-                    break;
-                }
-            }
-            if (depth == 0 && bestMoveSeq != null) {
-                resultMoveSeq.addAll(bestMoveSeq);
-            }
-
-            return alpha;
-
-        } else {// White turn
-            for (int i = 0; i < possibleBoardConf.size(); i++) {
-                Board b = possibleBoardConf.get(i);
-                List<Move> moveSeq = possibleMoveSeq.get(i);
+        return alpha;
+    }
 
-                int value = alphaBetaRed(b, Turn.RED, depth + 1, alpha, beta, resultMoveSeq);
+    /**
+     * Searches the first root move here to get a bound and the others in the
+     * pool, each by a copy of this computer with its own board, sharing the
+     * transposition table. Every root move is searched with a window just
+     * below the best score found so far (or at it for moves generated after
+     * the best one), so the result is the same as of the sequential search.
+     */
+    private int parallelSearch(Turn player) {
+        MoveList rootMoves = moveLists[0];
+        expandMoves(board, player, rootMoves);
+        if (rootMoves.size() < 2 || !canExploreFurther(board, player, 0)) {
+            return negamax(board, player, 0, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        nodesExpanded++;
+        orderRootMoves(rootMoves);
+        Turn opponent = (player == Turn.WHITE) ? Turn.RED : Turn.WHITE;
+        UndoRecord undo = undoRecords[0];
+        board.makeMove(rootMoves.get(0), undo);
+        int firstValue = -negamax(board, opponent, 1, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+        board.unmakeMove(undo);
+        if (aborted) {
+            return 0;
+        }
+        RootResult result = new RootResult(firstValue);
+        RootMoveTask[] tasks = new RootMoveTask[rootMoves.size() - 1];
+        for (int i = 1; i < rootMoves.size(); i++) {
+            tasks[i - 1] = new RootMoveTask(rootMoves.get(i), i, opponent, result);
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+        for (Computer worker : allWorkers) {
+            worker.depthLimitReached = false;
+        }
+        pool.invoke(new RootSearch(tasks));
+        for (Computer worker : allWorkers) {
+            aborted |= worker.aborted;
+            depthLimitReached |= worker.depthLimitReached;
+        }
+        if (aborted) {
+            iterationBestMove = rootMoves.get(result.index);
+            return 0;
+        }
+        iterationBestMove = rootMoves.get(result.index);
+        transpositionTable.store(board.getHash(player), getTableDepth(board, 0), TranspositionTable.EXACT, result.value, iterationBestMove);
+        return result.value;
+    }
 
-                if (value < beta) {
-                    bestMoveSeq = moveSeq;
-                    beta = value;
-                }
-                if (alpha > beta) {
-                    break;
-                }
+    private Computer takeWorker() {
+        Computer worker = workers.poll();
+        if (worker == null) {
+            worker = new Computer(new Board(board), maxDepth, owner, transpositionTable, 1);
+            worker.shareCancellation(this);
+            worker.copyPrincipalVariation(this);
+            synchronized (allWorkers) {
+                allWorkers.add(worker);
+                worker.stopped = stopped;
             }
-            if (depth == 0 && bestMoveSeq != null) {
-                resultMoveSeq.addAll(bestMoveSeq);
-            }
-
-            return beta;
         }
+        worker.searchDepth = searchDepth;
+        worker.completedDepth = completedDepth;
+        synchronized (allWorkers) {
+            // under the lock, so that a time control set meanwhile is not lost
+            worker.deadline = deadline;
+            worker.timeLimit = timeLimit;
+        }
+        return worker;
     }
 
-    public List<LinkedList<Move>> expandMoves(Board board, Turn player) {
+    /**
+     * Best root move found so far by the parallel search.
+     */
+    private static class RootResult {
 
-        List<LinkedList<Move>> outerList = new LinkedList<LinkedList<Move>>();
+        private int value;
+        private int index;
 
-        if (player == Turn.RED) {
+        RootResult(int value) {
+            this.value = value;
+        }
 
-            List<Move> moves = null;
-            moves = board.generateForcedRedMoves();
+        synchronized int getAlpha(int moveIndex) {
+            return (moveIndex < index) ? value - 1 : value;
+        }
 
-            if (moves.isEmpty()) {
-                moves = board.generateNonForcedRedMoves();
+        synchronized void offer(int moveIndex, int moveValue) {
+            if (moveValue > value || (moveValue == value && moveIndex < index)) {
+                value = moveValue;
+                index = moveIndex;
+            }
+        }
+    }
 
-                for (Move m : moves) {
-                    LinkedList<Move> innerList = new LinkedList<Move>();
-                    innerList.add(m);
-                    outerList.add(innerList);
-                }
+    private static class RootSearch extends RecursiveAction {
 
-            } else {
-                for (Move m : moves) {
+        private static final long serialVersionUID = 1L;
+        private final RootMoveTask[] tasks;
 
-                    int r = m.getDestination().y;
-                    int c = m.getDestination().x;
-                    List<Move> innerList = new LinkedList<Move>();
+        RootSearch(RootMoveTask[] tasks) {
+            this.tasks = tasks;
+        }
 
-                    innerList.add(m);
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
 
-                    Board boardCopy = new Board(board);
-                    boardCopy.genericRedMove(m);
-                    expandMoveRecursivelyForRed(boardCopy, outerList, innerList, r, c);
+    private class RootMoveTask extends RecursiveAction {
 
-                    innerList.remove(m);
+        private static final long serialVersionUID = 1L;
+        private final long move;
+        private final int index;
+        private final Turn opponent;
+        private final RootResult result;
 
-                }
-            }
+        RootMoveTask(long move, int index, Turn opponent, RootResult result) {
+            this.move = move;
+            this.index = index;
+            this.opponent = opponent;
+            this.result = result;
+        }
 
-        } else if (player == Turn.WHITE) {
-            List<Move> moves = null;
-            moves = board.generateForcedWhiteMoves();
-            if (moves.isEmpty()) {
-                moves = board.generateNonForcedWhiteMoves();
-                for (Move m : moves) {
-                    List<Move> innerList = new LinkedList<Move>();
-                    innerList.add(m);
-                    outerList.add((LinkedList<Move>) innerList);
+        @Override
+        protected void compute() {
+            Computer worker = takeWorker();
+            if (!aborted && !worker.aborted) {
+                int alpha = result.getAlpha(index);
+                Board workerBoard = worker.board;
+                UndoRecord undo = worker.undoRecords[0];
+                workerBoard.makeMove(move, undo);
+                int value = -worker.negamax(workerBoard, opponent, 1, -alpha - 1, -alpha);
+                if (value > alpha && !worker.aborted) {
+                    value = -worker.negamax(workerBoard, opponent, 1, -Integer.MAX_VALUE, -alpha);
                 }
-            } else {
-                for (Move m : moves) {
-                    int r = m.getDestination().y;
-                    int c = m.getDestination().x;
-                    List<Move> innerList = new LinkedList<Move>();
-
-                    innerList.add(m);
-
-                    Board boardCopy = new Board(board);
-                    boardCopy.genericWhiteMove(m);
-                    expandMoveRecursivelyForWhite(boardCopy, outerList, innerList, r, c);
-
-                    innerList.remove(m);
-
+                workerBoard.unmakeMove(undo);
+                if (value > alpha && !worker.aborted) {
+                    result.offer(index, value);
                 }
-
             }
+            workers.add(worker);
         }
-        return outerList;
     }
 
-    private void expandMoveRecursivelyForWhite(Board board, List<LinkedList<Move>> outerList, List<Move> innerList, int r, int c) {
-
-        List<Move> forcedMoves = board.checkers[r][c].generateForcedMoves(board);
+    /**
+     * Follows the pending captures past the search depth (up to the
+     * quiescence depth), so that no position is evaluated in the middle of
+     * an exchange. Captures are forced, so a position with a capture is
+     * never evaluated before the cap.
+     */
+    private int quiescence(Board board, Turn player, int depth, int alpha, int beta) {
+        MoveList captures = moveLists[depth];
+        captures.clear();
+        if (depth < searchDepth + quiescenceDepth && !board.isFinished()) {
+            captureGenerator.generate(board, player, captures);
+        }
+        if (captures.isEmpty()) {
+            int value = evaluator.evaluateBoard(board, player);
+            return (player == owner) ? value : -value;
+        }
+        for (int i = 0; i < captures.size(); i++) {
+            captures.setScore(i, Integer.bitCount(Moves.getCaptured(captures.get(i))));
+        }
+        captures.sort();
+        UndoRecord undo = undoRecords[depth];
+        Turn opponent = (player == Turn.WHITE) ? Turn.RED : Turn.WHITE;
+        for (int i = 0; i < captures.size(); i++) {
+            quiescenceNodes++;
+            if (isOutOfTime()) {
+                return 0;
+            }
+            board.makeMove(captures.get(i), undo);
+            int value = -quiescence(board, opponent, depth + 1, -beta, -alpha);
+            board.unmakeMove(undo);
+            if (aborted) {
+                return 0;
+            }
+            if (value > alpha) {
+                alpha = value;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return alpha;
+    }
 
-        if (forcedMoves.isEmpty()) {
-            List<Move> innerCopy = (LinkedList<Move>) ((LinkedList<Move>) innerList).clone();
-            outerList.add((LinkedList<Move>) innerCopy);
-            return;
+    /**
+     * Checks the clock (once there is a completed iteration to fall back to)
+     * and the stop and cancel requests every few nodes.
+     */
+    private boolean isOutOfTime() {
+        if (!aborted && (nodesExpanded + quiescenceNodes) % TIME_CHECK_INTERVAL == 0
+                && (stopped || cancelled.get() || (timeLimit > 0 && completedDepth > 0 && System.nanoTime() - deadline > 0))) {
+            aborted = true;
+        }
+        return aborted;
+    }
 
-        } else {
-            for (Move m : forcedMoves) {
+    /**
+     * @return true if the probed entry holds a score of the position,
+     * searched as deep, that can be returned for the window. Deeper results
+     * are used only by Lazy SMP, so that the score does not depend on the
+     * order in which (possibly parallel) searches filled the table.
+     */
+    private boolean isTranspositionCutoff(int depth, int alpha, int beta) {
+        if (entry.depth < searchDepth - depth || (!deeperCutoffs && entry.depth != searchDepth - depth)) {
+            return false;
+        }
+        switch (entry.bound) {
+            case TranspositionTable.LOWER_BOUND:
+                return entry.score >= beta;
+            case TranspositionTable.UPPER_BOUND:
+                return entry.score <= alpha;
+            default:
+                return true;
+        }
+    }
 
-                Board boardCopy = new Board(board);
-                boardCopy.genericWhiteMove(m);
+    private void storeTransposition(Board board, long hash, int depth, int score, int alpha, int beta, long bestMove) {
+        int bound = TranspositionTable.EXACT;
+        if (score <= alpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (score >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        }
+        transpositionTable.store(hash, getTableDepth(board, depth), bound, score, bestMove);
+    }
 
-                innerList.add(m);
-                expandMoveRecursivelyForWhite(boardCopy, outerList, innerList, m.getDestination().y, m.getDestination().x);
-                innerList.remove(m);
+    /**
+     * The no progress counter is not part of the hash, so a score that may
+     * depend on it (the game can end by the rule below the position) is
+     * stored with depth 0 and never cuts off, only its move is used.
+     * Positions in the same state are not cut off by the table either.
+     *
+     * @return remaining depth to store with the score of the position
+     */
+    private int getTableDepth(Board board, int depth) {
+        int remaining = searchDepth - depth;
+        return board.isNoProgressWithin(remaining) ? 0 : remaining;
+    }
 
+    /**
+     * Puts the best move from the table first, then the killer moves of the
+     * ply and the rest by history.
+     */
+    private void orderMoves(MoveList moves, int depth, long hashMove) {
+        if (depth == 0) {
+            orderRootMoves(moves);
+            return;
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            long move = moves.get(i);
+            if (move == hashMove) {
+                moves.setScore(i, Integer.MAX_VALUE);
+            } else if (move == killers[depth][0]) {
+                moves.setScore(i, Integer.MAX_VALUE - 1);
+            } else if (move == killers[depth][1]) {
+                moves.setScore(i, Integer.MAX_VALUE - 2);
+            } else {
+                moves.setScore(i, history[Moves.getSource(move)][Moves.getDestination(move)]);
             }
         }
-
+        moves.sort();
     }
 
-    private void expandMoveRecursivelyForRed(Board board, List<LinkedList<Move>> outerList, List<Move> innerList, int r, int c) {
-
-        List<Move> forcedMoves = board.checkers[r][c].generateForcedMoves(board);
+    /**
+     * Root moves are searched in the order they are generated, except for the
+     * best move of the previous iteration, so that parallel and sequential
+     * search break ties between equal moves the same way. Lazy SMP helpers
+     * start from another move.
+     */
+    private void orderRootMoves(MoveList moves) {
+        int size = moves.size();
+        for (int i = 0; i < size; i++) {
+            int rank = (i - rootOffset % size + size) % size;
+            moves.setScore(i, (moves.get(i) == bestRootMove) ? size : size - rank - 1);
+        }
+        moves.sort();
+    }
 
-        if (forcedMoves.isEmpty()) {
-            List<Move> innerCopy = (LinkedList<Move>) ((LinkedList<Move>) innerList).clone();
-            outerList.add((LinkedList<Move>) innerCopy);
-            return;
+    private void recordCutoff(long move, int depth, int index) {
+        cutoffs++;
+        if (index == 0) {
+            firstMoveCutoffs++;
+        }
+        if (killers[depth][0] != move) {
+            killers[depth][1] = killers[depth][0];
+            killers[depth][0] = move;
+        }
+        int remainingDepth = searchDepth - depth;
+        history[Moves.getSource(move)][Moves.getDestination(move)] += remainingDepth * remainingDepth;
+    }
 
-        } else {
-            for (Move m : forcedMoves) {
-                Board boardCopy = new Board(board);
-                boardCopy.genericRedMove(m);
+    /**
+     * Fills the list with every legal move of the player, a multiple jump is
+     * added as a single packed move.
+     */
+    public void expandMoves(Board board, Turn player, MoveList possibleMoves) {
+        possibleMoves.clear();
+        captureGenerator.generate(board, player, possibleMoves);
+        if (possibleMoves.isEmpty()) {
+            board.generateNonForcedMoves(player, possibleMoves);
+        }
+    }
 
-                innerList.add(m);
-                expandMoveRecursivelyForRed(boardCopy, outerList, innerList, m.getDestination().y, m.getDestination().x);
-                innerList.remove(m);
+    /**
+     * Converts packed move back to the jumps it is made of.
+     */
+    public List<Move> toMoveSequence(Board board, long move) {
+        LinkedList<Move> moveSeq = new LinkedList<Move>();
+        if (move == Moves.NONE) {
+            return moveSeq;
+        }
+        if (!Moves.isCapture(move)) {
+            moveSeq.add(board.toMove(move));
+            return moveSeq;
+        }
+        Board boardCopy = new Board(board);
+        int square = Moves.getSource(move);
+        int remaining = Moves.getCaptured(move);
+        for (int i = 0; i < Math.min(Moves.getJumpCount(move), Moves.MAX_PATH); i++) {
+            int jumped = boardCopy.getSquares().getNeighbour(square, Moves.getJumpDirection(move, i));
+            MoveList jumps = new MoveList();
+            boardCopy.generateForcedMoves(square, jumps);
+            for (int j = 0; j < jumps.size(); j++) {
+                long jump = jumps.get(j);
+                if (Moves.getCaptured(jump) == 1 << jumped) {
+                    moveSeq.add(boardCopy.toMove(jump));
+                    boardCopy.makeMove(jump, new UndoRecord());
+                    square = Moves.getDestination(jump);
+                }
+            }
+            remaining &= ~(1 << jumped);
+        }
+        if (remaining != 0) {
+            findJumps(boardCopy, square, Moves.getDestination(move), remaining, moveSeq);
+        }
+        return moveSeq;
+    }
 
+    private boolean findJumps(Board board, int square, int destination, int remaining, LinkedList<Move> moveSeq) {
+        if (remaining == 0) {
+            return square == destination;
+        }
+        MoveList jumps = new MoveList();
+        board.generateForcedMoves(square, jumps);
+        for (int i = 0; i < jumps.size(); i++) {
+            long jump = jumps.get(i);
+            if ((Moves.getCaptured(jump) & remaining) == 0) {
+                continue;
             }
+            UndoRecord undo = new UndoRecord();
+            board.makeMove(jump, undo);
+            moveSeq.addLast(board.toMove(jump));
+            boolean found = findJumps(board, Moves.getDestination(jump), destination, remaining & ~Moves.getCaptured(jump), moveSeq);
+            board.unmakeMove(undo);
+            if (found) {
+                return true;
+            }
+            moveSeq.removeLast();
         }
+        return false;
+    }
+
+    /**
+     * @return score of the database value for the player to move, wins
+     * closer to the end are better
+     */
+    private int getEndgameScore(int value, Turn player) {
+        EvaluatorParameters parameters = board.getParameters();
+        if (value == EndgameGenerator.DRAW) {
+            int draw = parameters.getDraw(owner);
+            return (player == owner) ? draw : -draw;
+        }
+        int win = parameters.getWin(owner);
+        int distance = EndgameGenerator.getDistance(value);
+        return EndgameGenerator.isWin(value) ? win - distance : distance - win;
     }
 
     private boolean canExploreFurther(Board board, Turn player, int depth) {
@@ -322,25 +1132,10 @@ public class Computer {
         if (board.isFinished() || board.isBlocked(player)) {
             res = false;
         }
-        if (depth == maxDepth) {
+        if (res && depth == searchDepth) {
+            depthLimitReached = true;
             res = false;
         }
         return res;
     }
-
-    public static List<Board> getPossibleBoardConf(Board board, List<LinkedList<Move>> possibleMoveSeq, Turn player) {
-        List<Board> possibleBoardConf = new LinkedList<Board>();
-        for (List<Move> moveSeq : possibleMoveSeq) {
-            Board boardCopy = new Board(board);
-            for (Move move : moveSeq) {
-                if (player == Turn.RED) {
-                    boardCopy.genericRedMove(move);
-                } else {
-                    boardCopy.genericWhiteMove(move);
-                }
-            }
-            possibleBoardConf.add(boardCopy);
-        }
-        return possibleBoardConf;
-    }
 }
@@ -0,0 +1,299 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Turn;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Probes the endgame databases written by {@link EndgameGenerator}. Every
+ * slice is kept on disk in blocks compressed separately (by the generator),
+ * only the offsets of the blocks are loaded. Decompressed blocks are kept in
+ * a two-way set associative cache of given size, read without locking.
+ * Databases of a directory are shared by all callers asking for the same
+ * cache size.
+ */
+public class EndgameDatabase {
+
+    public static final int BLOCK_SIZE = 4096;
+    static final int MAGIC = 0x4345445a;
+    private static final Map<String, EndgameDatabase> DATABASES = new HashMap<String, EndgameDatabase>();
+    // directories whose failure has been logged
+    private static final Set<String> FAILED = new HashSet<String>();
+
+    private final Slice[] slices = new Slice[1 << 16];
+    private final int maxPieces;
+    // pairs of ways, the first one holds the newer block
+    private final AtomicReferenceArray<CachedBlock> cache;
+    private final int setMask;
+    // blocks whose failure has been logged
+    private final Set<Long> failedBlocks = new HashSet<Long>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong decompressions = new AtomicLong();
+    private final AtomicLong decompressionTime = new AtomicLong();
+
+    private static class Slice {
+
+        private EndgameSlice slice;
+        private RandomAccessFile file;
+        private long[] offsets;
+    }
+
+    private static class CachedBlock {
+
+        private final long key;
+        private final byte[] values;
+
+        CachedBlock(long key, byte[] values) {
+            this.key = key;
+            this.values = values;
+        }
+    }
+
+    private EndgameDatabase(File directory, int cacheMegabytes) throws IOException {
+        int pieces = 1;
+        while (isComplete(directory, pieces + 1)) {
+            pieces++;
+        }
+        if (pieces < 2) {
+            throw new IOException("No compressed endgame databases in " + directory + ", run EndgameGenerator first");
+        }
+        maxPieces = pieces;
+        for (EndgameSlice slice : EndgameGenerator.getSlices(maxPieces)) {
+            slices[slice.getCode()] = open(directory, slice);
+        }
+        int sets = Integer.highestOneBit(Math.max(1, (int) ((long) cacheMegabytes * 1024 * 1024 / BLOCK_SIZE / 2)));
+        cache = new AtomicReferenceArray<CachedBlock>(2 * sets);
+        setMask = sets - 1;
+    }
+
+    /**
+     * @return databases of given directory, or null if the directory name is
+     * empty or the databases cannot be read. Databases that cannot be read
+     * are tried again by the next call, their failure is logged once.
+     */
+    public static EndgameDatabase forDirectory(String directoryName, int cacheMegabytes) {
+        if (directoryName == null || directoryName.isEmpty()) {
+            return null;
+        }
+        String key = directoryName + "#" + cacheMegabytes;
+        synchronized (DATABASES) {
+            EndgameDatabase database = DATABASES.get(key);
+            if (database == null) {
+                try {
+                    database = new EndgameDatabase(new File(directoryName), cacheMegabytes);
+                    DATABASES.put(key, database);
+                    FAILED.remove(directoryName);
+                } catch (IOException ex) {
+                    if (FAILED.add(directoryName)) {
+                        Logger.getLogger(EndgameDatabase.class.getName()).log(Level.WARNING, "Endgame databases " + directoryName + " not loaded", ex);
+                    }
+                }
+            }
+            return database;
+        }
+    }
+
+    private static boolean isComplete(File directory, int pieces) {
+        for (EndgameSlice slice : EndgameGenerator.getSlices(pieces)) {
+            if (!getFile(directory, slice).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static File getFile(File directory, EndgameSlice slice) {
+        return new File(directory, slice.getName() + ".cdz");
+    }
+
+    private static Slice open(File directory, EndgameSlice slice) throws IOException {
+        File file = getFile(directory, slice);
+        Slice opened = new Slice();
+        opened.slice = slice;
+        opened.file = new RandomAccessFile(file, "r");
+        int blocks = (slice.getSize() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (opened.file.readInt() != MAGIC || opened.file.readInt() != slice.getCode()
+                || opened.file.readInt() != BLOCK_SIZE || opened.file.readInt() != blocks) {
+            opened.file.close();
+            throw new IOException(file + " is not a compressed database of " + slice);
+        }
+        opened.offsets = new long[blocks + 1];
+        for (int i = 0; i <= blocks; i++) {
+            opened.offsets[i] = opened.file.readLong();
+        }
+        return opened;
+    }
+
+    /**
+     * Writes the generated slice in blocks compressed separately: magic,
+     * slice code, block size, number of blocks, offsets of the blocks (and
+     * of the end of the file) and the blocks. The slice is read one block at
+     * a time, the offsets are written once all the blocks are.
+     */
+    public static void compress(File directory, EndgameSlice slice) throws IOException {
+        int blocks = (slice.getSize() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        long[] offsets = new long[blocks + 1];
+        File file = getFile(directory, slice);
+        File temporary = new File(directory, file.getName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(EndgameGenerator.getFile(directory, slice))));
+                RandomAccessFile out = new RandomAccessFile(temporary, "rw")) {
+            EndgameGenerator.readHeader(in, directory, slice);
+            out.setLength(0);
+            ByteBuffer header = ByteBuffer.allocate(4 * Integer.SIZE / Byte.SIZE + offsets.length * Long.SIZE / Byte.SIZE);
+            out.seek(header.capacity());
+            byte[] values = new byte[BLOCK_SIZE];
+            byte[] buffer = new byte[2 * BLOCK_SIZE];
+            for (int i = 0; i < blocks; i++) {
+                int length = Math.min(BLOCK_SIZE, slice.getSize() - i * BLOCK_SIZE);
+                in.readFully(values, 0, length);
+                deflater.reset();
+                deflater.setInput(values, 0, length);
+                deflater.finish();
+                int compressed = deflater.deflate(buffer);
+                offsets[i] = out.getFilePointer();
+                out.write(buffer, 0, compressed);
+            }
+            offsets[blocks] = out.getFilePointer();
+            header.putInt(MAGIC).putInt(slice.getCode()).putInt(BLOCK_SIZE).putInt(blocks);
+            for (long offset : offsets) {
+                header.putLong(offset);
+            }
+            out.seek(0);
+            out.write(header.array());
+        } finally {
+            deflater.end();
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("Cannot rename " + temporary + " to " + file);
+        }
+    }
+
+    /**
+     * @return max number of pieces of the positions in the databases
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * @return value of the position (see {@link EndgameGenerator}) for the
+     * player to move, or -1 if it is not in the databases
+     */
+    public int probe(int whites, int reds, int kings, Turn player) {
+        if (player == Turn.RED) {
+            int rotatedWhites = EndgameSlice.rotate(reds);
+            reds = EndgameSlice.rotate(whites);
+            whites = rotatedWhites;
+            kings = EndgameSlice.rotate(kings);
+        }
+        if (Integer.bitCount(whites | reds) > maxPieces || whites == 0 || reds == 0) {
+            return -1;
+        }
+        Slice slice = slices[EndgameSlice.codeOf(whites, reds, kings)];
+        int index = slice.slice.index(whites, reds, kings);
+        byte[] block = getBlock(slice, index / BLOCK_SIZE);
+        if (block == null) {
+            return -1;
+        }
+        hits.incrementAndGet();
+        return block[index % BLOCK_SIZE] & 0xFF;
+    }
+
+    private byte[] getBlock(Slice slice, int blockIndex) {
+        long key = (long) slice.slice.getCode() << 32 | blockIndex;
+        int first = 2 * ((int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & setMask);
+        for (int way = first; way < first + 2; way++) {
+            CachedBlock cached = cache.get(way);
+            if (cached != null && cached.key == key) {
+                cacheHits.incrementAndGet();
+                return cached.values;
+            }
+        }
+        long start = System.nanoTime();
+        byte[] block = new byte[Math.min(BLOCK_SIZE, slice.slice.getSize() - blockIndex * BLOCK_SIZE)];
+        Inflater inflater = new Inflater();
+        try {
+            byte[] compressed = new byte[(int) (slice.offsets[blockIndex + 1] - slice.offsets[blockIndex])];
+            synchronized (slice) {
+                slice.file.seek(slice.offsets[blockIndex]);
+                slice.file.readFully(compressed);
+            }
+            inflater.setInput(compressed);
+            if (inflater.inflate(block) != block.length || !inflater.finished()) {
+                throw new DataFormatException("Block does not hold " + block.length + " values");
+            }
+        } catch (IOException | DataFormatException ex) {
+            boolean logged;
+            synchronized (failedBlocks) {
+                logged = !failedBlocks.add(key);
+            }
+            if (!logged) {
+                Logger.getLogger(EndgameDatabase.class.getName()).log(Level.WARNING, "Block " + blockIndex + " of " + slice.slice + " not read", ex);
+            }
+            return null;
+        } finally {
+            inflater.end();
+        }
+        decompressions.incrementAndGet();
+        decompressionTime.addAndGet(System.nanoTime() - start);
+        // races between writers may drop a block, which is read again later
+        cache.set(first + 1, cache.get(first));
+        cache.set(first, new CachedBlock(key, block));
+        return block;
+    }
+
+    /**
+     * @return number of positions found
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getDecompressions() {
+        return decompressions.get();
+    }
+
+    /**
+     * @return time spent reading and decompressing blocks in nanoseconds
+     */
+    public long getDecompressionTime() {
+        return decompressionTime.get();
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Board;
+import io.github.t3r1jj.checkersai.model.CaptureGenerator;
+import io.github.t3r1jj.checkersai.model.MoveList;
+import io.github.t3r1jj.checkersai.model.Moves;
+import io.github.t3r1jj.checkersai.model.Squares;
+import io.github.t3r1jj.checkersai.model.Turn;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Solves the endgames of the 8x8 board up to given number of pieces by
+ * retrograde analysis, one material slice (together with its flipped slice)
+ * at a time. Slices are solved after the slices their captures and
+ * promotions lead to, each is written to its own file once solved, so a
+ * stopped generation continues with the first missing slice. Solved slices
+ * are then compressed into the files probed by {@link EndgameDatabase}.
+ * <p>
+ * Values are distances (in plies) to the end of the game with the best play,
+ * plus one: odd values are losses of the side to move, even ones its wins,
+ * 0 is a draw. The no progress rule is not taken into account.
+ */
+public class EndgameGenerator {
+
+    public static final int DRAW = 0;
+    public static final int MAX_DISTANCE = 254;
+    static final int MAGIC = 0x43454442;
+    private static final int HEADER_BYTES = 8;
+    private static final int CHUNK = 1 << 16;
+
+    private final File directory;
+    private final int maxPieces;
+    private final ForkJoinPool pool;
+    private final Squares squares = Squares.forSize(8);
+    // slice code -> slice and values, of the solved slice and the slices it leads to
+    private final EndgameSlice[] slices = new EndgameSlice[1 << 16];
+    private final byte[][] values = new byte[1 << 16][];
+
+    public EndgameGenerator(File directory, int maxPieces, int threads) {
+        this.directory = directory;
+        this.maxPieces = maxPieces;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public static boolean isWin(int value) {
+        return value != DRAW && value % 2 == 0;
+    }
+
+    public static boolean isLoss(int value) {
+        return value % 2 == 1;
+    }
+
+    public static int getDistance(int value) {
+        return value - 1;
+    }
+
+    /**
+     * @return slices with pieces of both sides, up to given number of pieces,
+     * in the order of solving
+     */
+    public static List<EndgameSlice> getSlices(int maxPieces) {
+        List<EndgameSlice> list = new ArrayList<EndgameSlice>();
+        for (int whites = 1; whites < maxPieces; whites++) {
+            for (int reds = 1; whites + reds <= maxPieces; reds++) {
+                for (int whiteKings = 0; whiteKings <= whites; whiteKings++) {
+                    for (int redKings = 0; redKings <= reds; redKings++) {
+                        list.add(new EndgameSlice(whites - whiteKings, whiteKings, reds - redKings, redKings));
+                    }
+                }
+            }
+        }
+        Collections.sort(list, new Comparator<EndgameSlice>() {
+
+            @Override
+            public int compare(EndgameSlice a, EndgameSlice b) {
+                if (a.getPieces() != b.getPieces()) {
+                    return a.getPieces() - b.getPieces();
+                }
+                if (a.getPawns() != b.getPawns()) {
+                    return a.getPawns() - b.getPawns();
+                }
+                return a.getCode() - b.getCode();
+            }
+        });
+        return list;
+    }
+
+    public static File getFile(File directory, EndgameSlice slice) {
+        return new File(directory, slice.getName() + ".cdb");
+    }
+
+    public void generate() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        for (EndgameSlice slice : getSlices(maxPieces)) {
+            EndgameSlice flipped = slice.flip();
+            if (flipped.getCode() < slice.getCode()) {
+                continue;
+            }
+            EndgameSlice[] unit = slice.equals(flipped) ? new EndgameSlice[]{slice} : new EndgameSlice[]{slice, flipped};
+            if (getFile(directory, slice).exists() && getFile(directory, flipped).exists()) {
+                System.out.println(slice + " already solved");
+            } else {
+                long start = System.currentTimeMillis();
+                solve(unit);
+                for (EndgameSlice solved : unit) {
+                    write(solved, values[solved.getCode()]);
+                }
+                System.out.println(slice + (unit.length > 1 ? " and " + flipped : "") + " solved in "
+                        + (System.currentTimeMillis() - start) + " ms");
+                for (int i = 0; i < values.length; i++) {
+                    slices[i] = null;
+                    values[i] = null;
+                }
+            }
+            compress(unit);
+        }
+    }
+
+    /**
+     * Writes the compressed files probed by {@link EndgameDatabase}, unless
+     * they exist.
+     */
+    private void compress(EndgameSlice[] unit) throws IOException {
+        for (EndgameSlice slice : unit) {
+            if (!EndgameDatabase.getFile(directory, slice).exists()) {
+                EndgameDatabase.compress(directory, slice);
+            }
+        }
+    }
+
+    private void solve(EndgameSlice[] unit) throws IOException {
+        int maxDistance = 0;
+        for (EndgameSlice slice : unit) {
+            slices[slice.getCode()] = slice;
+            values[slice.getCode()] = new byte[slice.getSize()];
+            for (EndgameSlice next : getNextSlices(slice)) {
+                if (values[next.getCode()] == null) {
+                    byte[] nextValues = read(directory, next);
+                    slices[next.getCode()] = next;
+                    values[next.getCode()] = nextValues;
+                    for (byte value : nextValues) {
+                        maxDistance = Math.max(maxDistance, getDistance(value & 0xFF));
+                    }
+                }
+            }
+        }
+        for (int level = 0;; level++) {
+            if (level > MAX_DISTANCE) {
+                throw new IllegalStateException("Distances of " + unit[0] + " do not fit in a byte");
+            }
+            long solved = 0;
+            for (EndgameSlice slice : unit) {
+                solved += pool.invoke(new Pass(slice, level, 0, slice.getSize()));
+            }
+            if (solved == 0 && level > maxDistance) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return slices (with white to move) reached by the captures and
+     * promotions of white in given slice, after rotating the board
+     */
+    private List<EndgameSlice> getNextSlices(EndgameSlice slice) {
+        List<EndgameSlice> next = new ArrayList<EndgameSlice>();
+        for (int promoted = 0; promoted <= Math.min(1, slice.getWhitePawns()); promoted++) {
+            for (int redPawns = 0; redPawns <= slice.getRedPawns(); redPawns++) {
+                for (int redKings = 0; redKings <= slice.getRedKings(); redKings++) {
+                    boolean captured = redPawns + redKings < slice.getRedPawns() + slice.getRedKings();
+                    if ((captured || promoted > 0) && redPawns + redKings > 0) {
+                        next.add(new EndgameSlice(redPawns, redKings,
+                                slice.getWhitePawns() - promoted, slice.getWhiteKings() + promoted));
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Solves the positions of one level: wins whose best move leads to a loss
+     * of the previous level and losses whose every move leads to a win of at
+     * most the previous level. Values written during a pass are never used by
+     * it, so the positions can be solved in parallel.
+     */
+    private class Pass extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+        private final EndgameSlice slice;
+        private final int level;
+        private final int from;
+        private final int to;
+
+        Pass(EndgameSlice slice, int level, int from, int to) {
+            this.slice = slice;
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                Pass first = new Pass(slice, level, from, middle);
+                first.fork();
+                long solved = new Pass(slice, level, middle, to).compute();
+                return solved + first.join();
+            }
+            byte[] sliceValues = values[slice.getCode()];
+            int[] position = new int[3];
+            MoveList moves = new MoveList();
+            CaptureGenerator captureGenerator = new CaptureGenerator(8);
+            long solved = 0;
+            for (int index = from; index < to; index++) {
+                if (sliceValues[index] != DRAW || !slice.getPosition(index, position)) {
+                    continue;
+                }
+                moves.clear();
+                captureGenerator.generate(position[0], position[1], position[2], Turn.WHITE, moves);
+                if (moves.isEmpty()) {
+                    addSteps(position[0], position[1], position[2], moves);
+                }
+                if (isSolved(position, moves)) {
+                    sliceValues[index] = (byte) (level + 1);
+                    solved++;
+                }
+            }
+            return solved;
+        }
+
+        private boolean isSolved(int[] position, MoveList moves) {
+            boolean lost = true;
+            for (int i = 0; i < moves.size(); i++) {
+                int value = getValueAfter(position[0], position[1], position[2], moves.get(i));
+                if (isLoss(value)) {
+                    if (getDistance(value) == level - 1) {
+                        return true;
+                    }
+                    lost = false;
+                } else if (value == DRAW || getDistance(value) >= level) {
+                    lost = false;
+                }
+            }
+            return lost && level % 2 == 0;
+        }
+    }
+
+    private void addSteps(int whites, int reds, int kings, MoveList moves) {
+        int empty = ~(whites | reds);
+        for (int pieces = whites; pieces != 0; pieces &= pieces - 1) {
+            int source = Integer.numberOfTrailingZeros(pieces);
+            boolean king = (kings & (1 << source)) != 0;
+            for (int direction = Board.UP_LEFT; direction <= (king ? Board.DOWN_RIGHT : Board.UP_RIGHT); direction++) {
+                int destination = squares.getNeighbour(source, direction);
+                if (destination >= 0 && (empty & (1 << destination)) != 0) {
+                    moves.add(Moves.create(source, destination, 0, !king && squares.getY(destination) == 0));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return value of the position after the move of white, for red to move
+     */
+    private int getValueAfter(int whites, int reds, int kings, long move) {
+        int source = 1 << Moves.getSource(move);
+        int destination = 1 << Moves.getDestination(move);
+        int captured = Moves.getCaptured(move);
+        reds &= ~captured;
+        if (reds == 0) {
+            return 1;
+        }
+        boolean king = (kings & source) != 0 || Moves.isPromotion(move);
+        whites = (whites & ~source) | destination;
+        kings = (kings & ~(source | captured)) | (king ? destination : 0);
+        int rotatedWhites = EndgameSlice.rotate(reds);
+        int rotatedReds = EndgameSlice.rotate(whites);
+        int rotatedKings = EndgameSlice.rotate(kings);
+        int code = EndgameSlice.codeOf(rotatedWhites, rotatedReds, rotatedKings);
+        return values[code][slices[code].index(rotatedWhites, rotatedReds, rotatedKings)] & 0xFF;
+    }
+
+    private void write(EndgameSlice slice, byte[] sliceValues) throws IOException {
+        File file = getFile(directory, slice);
+        File temporary = new File(directory, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(slice.getCode());
+            out.write(sliceValues);
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("Cannot rename " + temporary + " to " + file);
+        }
+    }
+
+    /**
+     * @return values of the positions of given slice with white to move
+     */
+    public static byte[] read(File directory, EndgameSlice slice) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(getFile(directory, slice))))) {
+            readHeader(in, directory, slice);
+            byte[] sliceValues = new byte[slice.getSize()];
+            in.readFully(sliceValues);
+            return sliceValues;
+        }
+    }
+
+    /**
+     * Checks the file of given slice and reads its header, the values follow.
+     */
+    static void readHeader(DataInputStream in, File directory, EndgameSlice slice) throws IOException {
+        File file = getFile(directory, slice);
+        if (file.length() != HEADER_BYTES + slice.getSize()) {
+            throw new IOException(file + " is not a complete database of " + slice);
+        }
+        if (in.readInt() != MAGIC || in.readInt() != slice.getCode()) {
+            throw new IOException(file + " is not a database of " + slice);
+        }
+    }
+
+    /**
+     * @param args directory of the databases, max number of pieces (4 by
+     * default) and number of threads (all processors by default)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: EndgameGenerator <directory> [max pieces] [threads]");
+            return;
+        }
+        int maxPieces = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        new EndgameGenerator(new File(args[0]), maxPieces, threads).generate();
+    }
+}
@@ -0,0 +1,246 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+/**
+ * Material slice of the endgame databases of the 8x8 board: numbers of white
+ * pawns, white kings, red pawns and red kings, with white to move. Positions
+ * with red to move are looked up in the flipped slice after rotating the
+ * board by 180 degrees, which maps square s to 31 - s.
+ * <p>
+ * Index of a position is made of the ranks of the white pawns (among the
+ * squares out of the promotion row), the red pawns (same), the white kings
+ * among the squares left free by the pawns and the red kings among the
+ * squares still free. Indexes of positions with a white and a red pawn on the
+ * same square are not valid.
+ */
+public final class EndgameSlice {
+
+    public static final int SQUARES = 32;
+    private static final int[][] BINOMIALS = new int[SQUARES + 1][SQUARES + 1];
+    private static final int WHITE_PAWN_SQUARES = 0xFFFFFFF0;
+    private static final int RED_PAWN_SQUARES = 0x0FFFFFFF;
+
+    private final int whitePawns;
+    private final int whiteKings;
+    private final int redPawns;
+    private final int redKings;
+    private final int redPawnCombinations;
+    private final int whiteKingCombinations;
+    private final int redKingCombinations;
+    private final int size;
+
+    static {
+        for (int n = 0; n <= SQUARES; n++) {
+            BINOMIALS[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + BINOMIALS[n - 1][k];
+            }
+        }
+    }
+
+    public EndgameSlice(int whitePawns, int whiteKings, int redPawns, int redKings) {
+        this.whitePawns = whitePawns;
+        this.whiteKings = whiteKings;
+        this.redPawns = redPawns;
+        this.redKings = redKings;
+        int free = SQUARES - whitePawns - redPawns;
+        redPawnCombinations = BINOMIALS[Integer.bitCount(RED_PAWN_SQUARES)][redPawns];
+        whiteKingCombinations = BINOMIALS[free][whiteKings];
+        redKingCombinations = BINOMIALS[free - whiteKings][redKings];
+        long positions = (long) BINOMIALS[Integer.bitCount(WHITE_PAWN_SQUARES)][whitePawns]
+                * redPawnCombinations * whiteKingCombinations * redKingCombinations;
+        if (positions > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Slice " + getName() + " is too big");
+        }
+        size = (int) positions;
+    }
+
+    /**
+     * @return slice of the position with white to move
+     */
+    public static EndgameSlice of(int whites, int reds, int kings) {
+        return new EndgameSlice(Integer.bitCount(whites & ~kings), Integer.bitCount(whites & kings),
+                Integer.bitCount(reds & ~kings), Integer.bitCount(reds & kings));
+    }
+
+    /**
+     * @return code of the slice of the position with white to move, equal to
+     * {@link #getCode()} of that slice
+     */
+    public static int codeOf(int whites, int reds, int kings) {
+        return code(Integer.bitCount(whites & ~kings), Integer.bitCount(whites & kings),
+                Integer.bitCount(reds & ~kings), Integer.bitCount(reds & kings));
+    }
+
+    private static int code(int whitePawns, int whiteKings, int redPawns, int redKings) {
+        return whitePawns << 12 | whiteKings << 8 | redPawns << 4 | redKings;
+    }
+
+    /**
+     * Rotates the board by 180 degrees.
+     */
+    public static int rotate(int squares) {
+        return Integer.reverse(squares);
+    }
+
+    public int getCode() {
+        return code(whitePawns, whiteKings, redPawns, redKings);
+    }
+
+    /**
+     * @return slice with the colours swapped
+     */
+    public EndgameSlice flip() {
+        return new EndgameSlice(redPawns, redKings, whitePawns, whiteKings);
+    }
+
+    /**
+     * @return counts of white pawns, white kings, red pawns and red kings
+     */
+    public String getName() {
+        return "" + whitePawns + whiteKings + redPawns + redKings;
+    }
+
+    public int getPieces() {
+        return whitePawns + whiteKings + redPawns + redKings;
+    }
+
+    public int getPawns() {
+        return whitePawns + redPawns;
+    }
+
+    public int getWhitePawns() {
+        return whitePawns;
+    }
+
+    public int getWhiteKings() {
+        return whiteKings;
+    }
+
+    public int getRedPawns() {
+        return redPawns;
+    }
+
+    public int getRedKings() {
+        return redKings;
+    }
+
+    /**
+     * @return number of indexes, including the invalid ones
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return index of the position with white to move, its pieces have to
+     * match this slice
+     */
+    public int index(int whites, int reds, int kings) {
+        int pawns = (whites | reds) & ~kings;
+        int whiteKingSquares = whites & kings;
+        int index = rank(whites & ~kings, WHITE_PAWN_SQUARES);
+        index = index * redPawnCombinations + rank(reds & ~kings, RED_PAWN_SQUARES);
+        index = index * whiteKingCombinations + rank(whiteKingSquares, ~pawns);
+        return index * redKingCombinations + rank(reds & kings, ~(pawns | whiteKingSquares));
+    }
+
+    /**
+     * Sets whites, reds and kings of the position of given index into the
+     * array.
+     *
+     * @return false if the index is not valid
+     */
+    public boolean getPosition(int index, int[] position) {
+        int redKingSquares = unrank(index % redKingCombinations, redKings);
+        index /= redKingCombinations;
+        int whiteKingSquares = unrank(index % whiteKingCombinations, whiteKings);
+        index /= whiteKingCombinations;
+        int redPawnSquares = expand(unrank(index % redPawnCombinations, redPawns), RED_PAWN_SQUARES);
+        int whitePawnSquares = expand(unrank(index / redPawnCombinations, whitePawns), WHITE_PAWN_SQUARES);
+        if ((whitePawnSquares & redPawnSquares) != 0) {
+            return false;
+        }
+        int pawns = whitePawnSquares | redPawnSquares;
+        whiteKingSquares = expand(whiteKingSquares, ~pawns);
+        redKingSquares = expand(redKingSquares, ~(pawns | whiteKingSquares));
+        position[0] = whitePawnSquares | whiteKingSquares;
+        position[1] = redPawnSquares | redKingSquares;
+        position[2] = whiteKingSquares | redKingSquares;
+        return true;
+    }
+
+    /**
+     * Ranks the pieces by their positions among the allowed squares.
+     */
+    private static int rank(int pieces, int allowed) {
+        int rank = 0;
+        int k = 1;
+        for (int remaining = pieces; remaining != 0; remaining &= remaining - 1) {
+            int square = Integer.numberOfTrailingZeros(remaining);
+            rank += BINOMIALS[Integer.bitCount(allowed & ((1 << square) - 1))][k++];
+        }
+        return rank;
+    }
+
+    /**
+     * @return positions (among the allowed squares) of k pieces of given rank
+     */
+    private static int unrank(int rank, int k) {
+        int positions = 0;
+        int position = SQUARES - 1;
+        for (; k > 0; k--) {
+            while (BINOMIALS[position][k] > rank) {
+                position--;
+            }
+            rank -= BINOMIALS[position][k];
+            positions |= 1 << position;
+            position--;
+        }
+        return positions;
+    }
+
+    /**
+     * Maps positions among the allowed squares to the squares.
+     */
+    private static int expand(int positions, int allowed) {
+        int squares = 0;
+        int position = 0;
+        for (int remaining = allowed; position < SQUARES && positions >>> position != 0; remaining &= remaining - 1) {
+            if ((positions & (1 << position)) != 0) {
+                squares |= Integer.lowestOneBit(remaining);
+            }
+            position++;
+        }
+        return squares;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof EndgameSlice && ((EndgameSlice) obj).getCode() == getCode();
+    }
+
+    @Override
+    public int hashCode() {
+        return getCode();
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
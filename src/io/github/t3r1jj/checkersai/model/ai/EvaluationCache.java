@@ -0,0 +1,98 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import java.util.Arrays;
+
+/**
+ * Direct-mapped table of evaluations keyed by position hash, each position
+ * replaces the one stored in its slot. It is owned by a single evaluator, so
+ * it is not shared by the threads of a parallel search.
+ */
+public class EvaluationCache {
+
+    private static final int ENTRY_BYTES = 2 * Long.SIZE / Byte.SIZE;
+    private static final long SCORE_MASK = 0xFFFFFFFFL;
+    private static final long USED = 1L << 32;
+
+    private final long[] keys;
+    // score (32 bits) | used flag
+    private final long[] data;
+    private final int mask;
+    private long hits;
+    private long misses;
+
+    public EvaluationCache(int kilobytes) {
+        long entries = Math.max(1, (long) kilobytes * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return stored entry of given position, 0 if it is not stored
+     */
+    public long probe(long hash) {
+        int index = (int) hash & mask;
+        long entry = data[index];
+        if (entry != 0 && keys[index] == hash) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        return 0;
+    }
+
+    /**
+     * @return score of an entry returned by {@link #probe(long)}
+     */
+    public static int getScore(long entry) {
+        return (int) entry;
+    }
+
+    public void store(long hash, int score) {
+        int index = (int) hash & mask;
+        keys[index] = hash;
+        data[index] = (score & SCORE_MASK) | USED;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Adds the counters of another cache, e.g. of a helper of the search.
+     */
+    public void addCounters(EvaluationCache other) {
+        hits += other.hits;
+        misses += other.misses;
+    }
+}
@@ -16,26 +16,69 @@
 package io.github.t3r1jj.checkersai.model.ai;
 
 import io.github.t3r1jj.checkersai.model.Board;
+import io.github.t3r1jj.checkersai.model.Squares;
 import io.github.t3r1jj.checkersai.model.Turn;
 
 public class Evaluator {
 
     private Turn owner;
-    private final EvaluatorConfig config;
+    private final EvaluatorParameters parameters;
+    private final EvaluationCache cache;
 
-    public Evaluator(EvaluatorConfig config) {
-        this.config = config;
+    public Evaluator(EvaluatorParameters parameters) {
+        this(parameters, 0);
+    }
+
+    /**
+     * @param cacheKilobytes size of the cache of the evaluations, 0 for none
+     */
+    public Evaluator(EvaluatorParameters parameters, int cacheKilobytes) {
+        this.parameters = parameters;
+        cache = (cacheKilobytes > 0) ? new EvaluationCache(cacheKilobytes) : null;
     }
 
     public void setOwner(Turn owner) {
+        if (cache != null && owner != this.owner) {
+            cache.clear();
+        }
         this.owner = owner;
     }
 
+    /**
+     * @return cache of the evaluations, null if they are not cached
+     */
+    public EvaluationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Looks the position up in the cache first. The draw by no progress
+     * depends on the moves played before, so it is checked before and not
+     * cached; the rest (blocked players included) depends only on the
+     * position.
+     */
     public int evaluateBoard(Board board, Turn turn) {
+        if (board.noProgress()) {
+            return (owner.equals(Turn.WHITE)) ? parameters.getWhiteDraw() : parameters.getRedDraw();
+        }
+        if (cache == null) {
+            return evaluatePosition(board, turn);
+        }
+        long hash = board.getHash(turn);
+        long entry = cache.probe(hash);
+        if (entry != 0) {
+            return EvaluationCache.getScore(entry);
+        }
+        int value = evaluatePosition(board, turn);
+        cache.store(hash, value);
+        return value;
+    }
+
+    private int evaluatePosition(Board board, Turn turn) {
         boolean isWhiteBlocked = board.isBlocked(Turn.WHITE);
         boolean isRedBlocked = board.isBlocked(Turn.RED);
-        if (board.noProgress() || (isWhiteBlocked && isRedBlocked)) {
-            return (owner.equals(Turn.WHITE)) ? config.getWhiteDraw() : config.getRedDraw();
+        if (isWhiteBlocked && isRedBlocked) {
+            return (owner.equals(Turn.WHITE)) ? parameters.getWhiteDraw() : parameters.getRedDraw();
         }
         if (turn == Turn.RED) {
             return evalueateBoardForRed(board, isWhiteBlocked, isRedBlocked);
@@ -45,66 +88,76 @@ public class Evaluator {
     }
 
     private int evaluateBoardForWhite(Board board, boolean isWhiteBlocked, boolean isRedBlocked) {
-        int wValue = 0;
         if (owner.equals(Turn.WHITE)) {
             if (isRedBlocked || board.countReds() == 0) {
-                return config.getWhiteWin();
+                return parameters.getWhiteWin();
             } else if (isWhiteBlocked || board.countWhites() == 0) {
-                return -config.getWhiteWin();
+                return -parameters.getWhiteWin();
             }
-            wValue = sumWhiteValue(board);
         } else {
             if (isRedBlocked || board.countReds() == 0) {
-                return -config.getRedWin();
+                return -parameters.getRedWin();
             } else if (isWhiteBlocked || board.countWhites() == 0) {
-                return config.getRedWin();
+                return parameters.getRedWin();
             }
-            wValue = sumRedValue(board);
         }
-        wValue /= board.countReds();
-
-        return wValue;
+        return sumValue(board) / board.countReds();
     }
 
     private int evalueateBoardForRed(Board board, boolean isWhiteBlocked, boolean isRedBlocked) {
-        int bValue = 0;
         if (owner.equals(Turn.WHITE)) {
             if (isWhiteBlocked || board.countWhites() == 0) {
-                return -config.getWhiteWin();
+                return -parameters.getWhiteWin();
             } else if (isRedBlocked || board.countReds() == 0) {
-                return config.getWhiteWin();
+                return parameters.getWhiteWin();
             }
-            bValue = sumWhiteValue(board);
         } else {
             if (isWhiteBlocked || board.countWhites() == 0) {
-                return config.getRedWin();
+                return parameters.getRedWin();
             } else if (isRedBlocked || board.countReds() == 0) {
-                return -config.getRedWin();
+                return -parameters.getRedWin();
             }
-            bValue = sumRedValue(board);
         }
-        bValue /= board.countWhites();
-        return bValue;
+        return sumValue(board) / board.countWhites();
     }
 
-    private int sumRedValue(Board board) {
-        int value = 0;
-        for (int i = 0; i < board.getHeight(); i++) {
-            int j = (i % 2 == 0) ? 1 : 0;
-            for (; j < board.getLength(); j += 2) {
-                value += board.checkers[i][j].getValue(config, owner);
-            }
+    /**
+     * @return value of the pieces and of the positional terms for the owner
+     */
+    private int sumValue(Board board) {
+        int value = sumLocalValue(board);
+        if (parameters.getRunaway() != 0) {
+            value += parameters.getRunaway() * (board.countRunaways(Turn.WHITE) - board.countRunaways(Turn.RED));
         }
-        return value;
+        return (owner == Turn.WHITE) ? value : -value;
     }
 
-    private int sumWhiteValue(Board board) {
+    /**
+     * @return value of white less the one of red of the terms which depend
+     * only on the squares next to a piece: the pieces, summed up by the
+     * board, and the positional terms counted on the bitboards
+     */
+    protected int sumLocalValue(Board board) {
+        return board.getScore() + sumPositionalValue(board);
+    }
+
+    private int sumPositionalValue(Board board) {
+        Squares squares = board.getSquares();
+        int whites = board.getWhites();
+        int reds = board.getReds();
+        int kings = board.getKings();
         int value = 0;
-        for (int i = 0; i < board.getHeight(); i++) {
-            int j = (i % 2 == 0) ? 1 : 0;
-            for (; j < board.getLength(); j += 2) {
-                value += board.checkers[i][j].getValue(config, owner);
-            }
+        if (parameters.getBackRank() != 0) {
+            int whiteGuards = Integer.bitCount(whites & ~kings & squares.getRow(squares.getSize() - 1));
+            int redGuards = Integer.bitCount(reds & ~kings & squares.getRow(0));
+            value += parameters.getBackRank() * (whiteGuards - redGuards);
+        }
+        if (parameters.getCentre() != 0) {
+            int centre = squares.getCentre();
+            value += parameters.getCentre() * (Integer.bitCount(whites & centre) - Integer.bitCount(reds & centre));
+        }
+        if (parameters.getKingMobility() != 0) {
+            value += parameters.getKingMobility() * (board.countKingSteps(Turn.WHITE) - board.countKingSteps(Turn.RED));
         }
         return value;
     }
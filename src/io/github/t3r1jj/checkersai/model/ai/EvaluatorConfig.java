@@ -31,6 +31,32 @@ public class EvaluatorConfig extends Properties {
         setRedKing(2000);
         setRedPawn(1000);
         setRedDepth(3);
+        setHashMb(16);
+        setWhiteTimeMs(0);
+        setRedTimeMs(0);
+        setQuiescenceDepth(8);
+        setThreads(1);
+        setEngine("alpha-beta");
+        setPonder(false);
+        setBookFile("");
+        setTablebaseDir("");
+        setTablebaseCacheMb(16);
+        setPatternFile("");
+        setEvalCacheKb(1024);
+        setPawnSquares(new int[0]);
+        setKingSquares(new int[0]);
+        setBackRank(150);
+        setCentre(80);
+        setRunaway(300);
+        setKingMobility(50);
+    }
+
+    /**
+     * @return snapshot of the evaluation values, meant to be taken when a
+     * game starts
+     */
+    public EvaluatorParameters compile() {
+        return new EvaluatorParameters(this);
     }
 
     public String getWhiteConfig() {
@@ -49,7 +75,11 @@ public class EvaluatorConfig extends Properties {
 
     public String getFunctionConfig() {
         return "\nGrading function: difference in points between 2 players divided by"
-                + " number of checkers left for enemy player";
+                + " number of checkers left for enemy player"
+                + "\nPositional points: BACK_RANK=" + getBackRank() + ", CENTRE=" + getCentre()
+                + ", RUNAWAY=" + getRunaway() + ", KING_MOBILITY=" + getKingMobility()
+                + ", piece-square tables: " + (getPawnSquares().length + getKingSquares().length > 0)
+                + ", pattern table: " + !getPatternFile().isEmpty();
     }
 
     public char getGameplay() {
@@ -140,4 +170,230 @@ public class EvaluatorConfig extends Properties {
         setProperty("white_depth", String.valueOf(whiteDepth));
     }
 
+    public int getHashMb() {
+        return Integer.parseInt(getProperty("hash_mb"));
+    }
+
+    public final void setHashMb(int hashMb) {
+        setProperty("hash_mb", String.valueOf(hashMb));
+    }
+
+    /**
+     * @return search time per move of white AI in milliseconds, no limit if
+     * it is not positive
+     */
+    public int getWhiteTimeMs() {
+        return Integer.parseInt(getProperty("white_time_ms"));
+    }
+
+    public final void setWhiteTimeMs(int whiteTimeMs) {
+        setProperty("white_time_ms", String.valueOf(whiteTimeMs));
+    }
+
+    public int getRedTimeMs() {
+        return Integer.parseInt(getProperty("red_time_ms"));
+    }
+
+    public final void setRedTimeMs(int redTimeMs) {
+        setProperty("red_time_ms", String.valueOf(redTimeMs));
+    }
+
+    /**
+     * @return number of plies searched past the max depth while captures are
+     * pending, 0 turns the quiescence search off
+     */
+    public int getQuiescenceDepth() {
+        return Integer.parseInt(getProperty("quiescence_depth"));
+    }
+
+    public final void setQuiescenceDepth(int quiescenceDepth) {
+        setProperty("quiescence_depth", String.valueOf(quiescenceDepth));
+    }
+
+    /**
+     * @return number of threads searching the root moves in parallel
+     */
+    public int getThreads() {
+        return Integer.parseInt(getProperty("threads"));
+    }
+
+    public final void setThreads(int threads) {
+        setProperty("threads", String.valueOf(threads));
+    }
+
+    /**
+     * @return search engine of the computer players, "alpha-beta" or
+     * "lazy-smp"
+     */
+    public String getEngine() {
+        return getProperty("engine");
+    }
+
+    public final void setEngine(String engine) {
+        setProperty("engine", engine);
+    }
+
+    /**
+     * @return true if the computer searches on the human player's time
+     */
+    public boolean isPonder() {
+        return Boolean.parseBoolean(getProperty("ponder"));
+    }
+
+    public final void setPonder(boolean ponder) {
+        setProperty("ponder", String.valueOf(ponder));
+    }
+
+    /**
+     * @return opening book file built by {@link OpeningBookBuilder}, empty if
+     * no book is used
+     */
+    public String getBookFile() {
+        return getProperty("book_file");
+    }
+
+    public final void setBookFile(String bookFile) {
+        setProperty("book_file", bookFile);
+    }
+
+    /**
+     * @return directory of the endgame databases written by
+     * {@link EndgameGenerator}, empty if no databases are used
+     */
+    public String getTablebaseDir() {
+        return getProperty("tablebase_dir");
+    }
+
+    public final void setTablebaseDir(String tablebaseDir) {
+        setProperty("tablebase_dir", tablebaseDir);
+    }
+
+    /**
+     * @return size of the cache of decompressed database blocks
+     */
+    public int getTablebaseCacheMb() {
+        return Integer.parseInt(getProperty("tablebase_cache_mb"));
+    }
+
+    public final void setTablebaseCacheMb(int tablebaseCacheMb) {
+        setProperty("tablebase_cache_mb", String.valueOf(tablebaseCacheMb));
+    }
+
+    /**
+     * @return pattern table built by {@link PatternTableBuilder} from the
+     * evaluation values, used by the 8x8 board instead of counting the local
+     * terms; empty if no table is used
+     */
+    public String getPatternFile() {
+        return getProperty("pattern_file");
+    }
+
+    public final void setPatternFile(String patternFile) {
+        setProperty("pattern_file", patternFile);
+    }
+
+    /**
+     * @return size of the cache of the evaluations of each search thread, 0
+     * for none
+     */
+    public int getEvalCacheKb() {
+        return Integer.parseInt(getProperty("eval_cache_kb"));
+    }
+
+    public final void setEvalCacheKb(int evalCacheKb) {
+        setProperty("eval_cache_kb", String.valueOf(evalCacheKb));
+    }
+
+    /**
+     * @return comma separated values added to the pawn value on each square
+     * as seen by white (square index is y * 4 + x / 2, white moving up), red
+     * pawns use the board rotated by 180 degrees; empty for none
+     */
+    public int[] getPawnSquares() {
+        return parseValues(getProperty("pawn_squares"));
+    }
+
+    public final void setPawnSquares(int[] pawnSquares) {
+        setProperty("pawn_squares", formatValues(pawnSquares));
+    }
+
+    /**
+     * @return values added to the king value on each square, like
+     * {@link #getPawnSquares()}
+     */
+    public int[] getKingSquares() {
+        return parseValues(getProperty("king_squares"));
+    }
+
+    public final void setKingSquares(int[] kingSquares) {
+        setProperty("king_squares", formatValues(kingSquares));
+    }
+
+    private static int[] parseValues(String text) {
+        if (text.trim().isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = text.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static String formatValues(int[] values) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(values[i]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return value of each pawn kept on its own back row
+     */
+    public int getBackRank() {
+        return Integer.parseInt(getProperty("back_rank"));
+    }
+
+    public final void setBackRank(int backRank) {
+        setProperty("back_rank", String.valueOf(backRank));
+    }
+
+    /**
+     * @return value of each piece on the middle two rows, off the edges
+     */
+    public int getCentre() {
+        return Integer.parseInt(getProperty("centre"));
+    }
+
+    public final void setCentre(int centre) {
+        setProperty("centre", String.valueOf(centre));
+    }
+
+    /**
+     * @return value of each pawn with no enemy ahead to stop it
+     */
+    public int getRunaway() {
+        return Integer.parseInt(getProperty("runaway"));
+    }
+
+    public final void setRunaway(int runaway) {
+        setProperty("runaway", String.valueOf(runaway));
+    }
+
+    /**
+     * @return value of each single step of the kings
+     */
+    public int getKingMobility() {
+        return Integer.parseInt(getProperty("king_mobility"));
+    }
+
+    public final void setKingMobility(int kingMobility) {
+        setProperty("king_mobility", String.valueOf(kingMobility));
+    }
+
 }
@@ -0,0 +1,136 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Turn;
+
+/**
+ * Evaluation values of {@link EvaluatorConfig} read once, so the evaluation
+ * does not parse properties. It is immutable and can be shared by the search
+ * threads; changes of the config take effect in the next compiled snapshot.
+ */
+public final class EvaluatorParameters {
+
+    private final int whitePawn;
+    private final int whiteKing;
+    private final int whiteWin;
+    private final int whiteDraw;
+    private final int redPawn;
+    private final int redKing;
+    private final int redWin;
+    private final int redDraw;
+    private final int[] pawnSquares;
+    private final int[] kingSquares;
+    private final int backRank;
+    private final int centre;
+    private final int runaway;
+    private final int kingMobility;
+
+    EvaluatorParameters(EvaluatorConfig config) {
+        whitePawn = config.getWhitePawn();
+        whiteKing = config.getWhiteKing();
+        whiteWin = config.getWhiteWin();
+        whiteDraw = config.getWhiteDraw();
+        redPawn = config.getRedPawn();
+        redKing = config.getRedKing();
+        redWin = config.getRedWin();
+        redDraw = config.getRedDraw();
+        pawnSquares = config.getPawnSquares();
+        kingSquares = config.getKingSquares();
+        backRank = config.getBackRank();
+        centre = config.getCentre();
+        runaway = config.getRunaway();
+        kingMobility = config.getKingMobility();
+    }
+
+    public int getWhitePawn() {
+        return whitePawn;
+    }
+
+    public int getWhiteKing() {
+        return whiteKing;
+    }
+
+    public int getWhiteWin() {
+        return whiteWin;
+    }
+
+    public int getWhiteDraw() {
+        return whiteDraw;
+    }
+
+    public int getRedPawn() {
+        return redPawn;
+    }
+
+    public int getRedKing() {
+        return redKing;
+    }
+
+    public int getRedWin() {
+        return redWin;
+    }
+
+    public int getRedDraw() {
+        return redDraw;
+    }
+
+    /**
+     * @return value added to a white pawn on given square of a board with
+     * given number of squares, 0 if the table is not of that board
+     */
+    public int getPawnSquare(int square, int count) {
+        return (pawnSquares.length == count) ? pawnSquares[square] : 0;
+    }
+
+    /**
+     * @return value added to a white king on given square, like
+     * {@link #getPawnSquare(int, int)}
+     */
+    public int getKingSquare(int square, int count) {
+        return (kingSquares.length == count) ? kingSquares[square] : 0;
+    }
+
+    public int getBackRank() {
+        return backRank;
+    }
+
+    public int getCentre() {
+        return centre;
+    }
+
+    public int getRunaway() {
+        return runaway;
+    }
+
+    public int getKingMobility() {
+        return kingMobility;
+    }
+
+    /**
+     * @return win value of given player
+     */
+    public int getWin(Turn player) {
+        return (player == Turn.WHITE) ? whiteWin : redWin;
+    }
+
+    /**
+     * @return draw value of given player
+     */
+    public int getDraw(Turn player) {
+        return (player == Turn.WHITE) ? whiteDraw : redDraw;
+    }
+}
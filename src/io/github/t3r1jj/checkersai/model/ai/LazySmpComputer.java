@@ -0,0 +1,134 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Board;
+import io.github.t3r1jj.checkersai.model.Turn;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lazy SMP search: helper threads run the same iterative deepening on copies
+ * of the board, starting and ending one or two plies deeper and with the
+ * root moves rotated. They share only the transposition table with the main
+ * search, whose move is played. Results are not reproducible between runs.
+ * Helpers and their threads are kept between the moves of a game and are
+ * used by the ponder search too.
+ */
+public class LazySmpComputer extends Computer {
+
+    private static final long HELPER_KEEP_ALIVE_SECONDS = 60;
+    private final Computer[] helpers;
+    private final Future<?>[] helperTasks;
+    private final ExecutorService helperThreads;
+
+    public LazySmpComputer(Board board, int maxDepth, Turn owner) {
+        super(board, maxDepth, owner, new TranspositionTable(board.getConfig().getHashMb()), 1);
+        setDeeperCutoffs(true);
+        helpers = new Computer[Math.max(0, board.getConfig().getThreads() - 1)];
+        helperTasks = new Future<?>[helpers.length];
+        // idle threads end, so a computer no longer used does not keep them
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, helpers.length), Math.max(1, helpers.length),
+                HELPER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new HelperThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        helperThreads = executor;
+    }
+
+    /**
+     * Ponder search sharing the helpers of given computer, which is idle
+     * while it runs.
+     */
+    private LazySmpComputer(Board board, LazySmpComputer computer) {
+        super(board, computer.getMaxDepth(), computer.getOwner(), computer.getTranspositionTable(), 1);
+        setDeeperCutoffs(true);
+        helpers = computer.helpers;
+        helperTasks = computer.helperTasks;
+        helperThreads = computer.helperThreads;
+    }
+
+    @Override
+    void startHelpers(final Turn player) {
+        for (int i = 0; i < helpers.length; i++) {
+            if (helpers[i] == null) {
+                helpers[i] = new Computer(new Board(getBoard()), getMaxDepth() + 1 + i % 2, getOwner(), getTranspositionTable(), 1);
+                helpers[i].setDeeperCutoffs(true);
+                helpers[i].shareCancellation(this);
+                helpers[i].setRootOffset(i + 1);
+                helpers[i].setTimeLimit(0);
+            } else {
+                helpers[i].getBoard().copyPosition(getBoard());
+            }
+            final Computer helper = helpers[i];
+            helper.resume();
+            helper.prepare(0);
+            helper.copyPrincipalVariation(this);
+            final int firstDepth = 2 + i % 2;
+            helperTasks[i] = helperThreads.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    helper.iterate(player, firstDepth);
+                }
+            });
+        }
+    }
+
+    private static class HelperThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Lazy SMP helper " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    @Override
+    Computer createPonderer(Board board) {
+        return new LazySmpComputer(board, this);
+    }
+
+    @Override
+    void stopHelpers() {
+        for (Computer helper : helpers) {
+            if (helper != null) {
+                helper.stop();
+            }
+        }
+        for (int i = 0; i < helpers.length; i++) {
+            try {
+                helperTasks[i].get();
+            } catch (InterruptedException ex) {
+                // the helper may still be running, a new one is made next time
+                helpers[i] = null;
+                Thread.currentThread().interrupt();
+                continue;
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Lazy SMP helper " + (i + 1) + " failed", ex.getCause());
+            }
+            addCounters(helpers[i]);
+            helperTasks[i] = null;
+        }
+    }
+}
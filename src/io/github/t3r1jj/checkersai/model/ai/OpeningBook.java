@@ -0,0 +1,138 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Moves;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Book of opening moves, memory mapped read only, so that all computers (and
+ * processes) using the same file share one copy. The file starts with
+ * {@link #MAGIC} and the board size, followed by entries sorted by position
+ * hash (with the side to move): hash, move, score and depth of the search
+ * that found the move.
+ */
+public class OpeningBook {
+
+    public static final int MAGIC = 0x43424f4b;
+    static final int HEADER_BYTES = 2 * Integer.SIZE / Byte.SIZE;
+    static final int ENTRY_BYTES = 2 * Long.SIZE / Byte.SIZE + 2 * Integer.SIZE / Byte.SIZE;
+    private static final Map<String, OpeningBook> BOOKS = new HashMap<String, OpeningBook>();
+    // files whose failure has been logged
+    private static final Set<String> FAILED = new HashSet<String>();
+
+    private final ByteBuffer entries;
+    private final int size;
+    private final int count;
+
+    private OpeningBook(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+                || (buffer.limit() - HEADER_BYTES) % ENTRY_BYTES != 0) {
+            throw new IOException("Not an opening book");
+        }
+        size = buffer.getInt(Integer.SIZE / Byte.SIZE);
+        count = (buffer.limit() - HEADER_BYTES) / ENTRY_BYTES;
+        entries = buffer;
+    }
+
+    /**
+     * @return book mapped from given file, shared by all callers, or null if
+     * the file name is empty or the file cannot be read. A file that cannot
+     * be read is tried again by the next call, its failure is logged once.
+     */
+    public static OpeningBook forFile(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return null;
+        }
+        synchronized (BOOKS) {
+            OpeningBook book = BOOKS.get(fileName);
+            if (book == null) {
+                book = open(new File(fileName));
+                if (book != null) {
+                    BOOKS.put(fileName, book);
+                }
+            }
+            return book;
+        }
+    }
+
+    private static OpeningBook open(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            OpeningBook book = new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            FAILED.remove(file.getPath());
+            return book;
+        } catch (IOException ex) {
+            if (FAILED.add(file.getPath())) {
+                Logger.getLogger(OpeningBook.class.getName()).log(Level.WARNING, "Opening book " + file + " not loaded", ex);
+            }
+            return null;
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return index of the entry of given position hash, or -1
+     */
+    public int find(long hash) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long key = entries.getLong(HEADER_BYTES + middle * ENTRY_BYTES);
+            if (key < hash) {
+                low = middle + 1;
+            } else if (key > hash) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return move of the entry at given index, or {@link Moves#NONE} for -1
+     */
+    public long getMove(int index) {
+        return (index < 0) ? Moves.NONE : entries.getLong(HEADER_BYTES + index * ENTRY_BYTES + 8);
+    }
+
+    public int getScore(int index) {
+        return entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 16);
+    }
+
+    public int getDepth(int index) {
+        return entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 20);
+    }
+}
@@ -0,0 +1,157 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Board;
+import io.github.t3r1jj.checkersai.model.MoveList;
+import io.github.t3r1jj.checkersai.model.Moves;
+import io.github.t3r1jj.checkersai.model.Turn;
+import io.github.t3r1jj.checkersai.model.UndoRecord;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the opening book by searching the positions of the first plies.
+ * For each side, the book side plays its best move and the other side every
+ * legal move, so the book answers any opening of the opponent.
+ */
+public class OpeningBookBuilder {
+
+    private final Board board;
+    private final int plies;
+    private final Computer whiteComputer;
+    private final Computer redComputer;
+    // hash -> move, score, depth
+    private final Map<Long, long[]> entries = new HashMap<Long, long[]>();
+    private final Set<Long> visited = new HashSet<Long>();
+
+    /**
+     * @param config evaluator settings of the searches, its book file is not
+     * used (the config itself is not changed)
+     * @param plies number of plies covered by the book
+     * @param depth max depth of the searches
+     */
+    public OpeningBookBuilder(EvaluatorConfig config, int plies, int depth) {
+        EvaluatorConfig searchConfig = new EvaluatorConfig();
+        searchConfig.putAll(config);
+        searchConfig.setBookFile("");
+        this.board = new Board(8, 50, searchConfig);
+        this.plies = plies;
+        whiteComputer = new Computer(board, depth, Turn.WHITE);
+        redComputer = new Computer(board, depth, Turn.RED);
+    }
+
+    public void build() {
+        for (Turn bookSide : Turn.values()) {
+            visited.clear();
+            expand(Turn.WHITE, bookSide, 0);
+        }
+    }
+
+    private void expand(Turn player, Turn bookSide, int ply) {
+        if (ply >= plies || board.isFinished() || board.isBlocked(player)
+                || !visited.add(board.getHash(player))) {
+            return;
+        }
+        Turn opponent = (player == Turn.WHITE) ? Turn.RED : Turn.WHITE;
+        UndoRecord undo = new UndoRecord();
+        if (player == bookSide) {
+            board.makeMove(search(player), undo);
+            expand(opponent, bookSide, ply + 1);
+            board.unmakeMove(undo);
+        } else {
+            MoveList moves = new MoveList();
+            whiteComputer.expandMoves(board, player, moves);
+            for (int i = 0; i < moves.size(); i++) {
+                board.makeMove(moves.get(i), undo);
+                expand(opponent, bookSide, ply + 1);
+                board.unmakeMove(undo);
+            }
+        }
+    }
+
+    private long search(Turn player) {
+        long hash = board.getHash(player);
+        long[] entry = entries.get(hash);
+        if (entry == null) {
+            Computer computer = (player == Turn.WHITE) ? whiteComputer : redComputer;
+            int score = computer.search(player);
+            entry = new long[]{computer.getBestMove(), score, computer.getCompletedDepth()};
+            entries.put(hash, entry);
+            if (entries.size() % 1000 == 0) {
+                System.out.println(entries.size() + " positions searched");
+            }
+        }
+        return entry[0];
+    }
+
+    public int getCount() {
+        return entries.size();
+    }
+
+    public void write(String fileName) throws IOException {
+        Long[] hashes = entries.keySet().toArray(new Long[entries.size()]);
+        Arrays.sort(hashes);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(board.getLength());
+            for (Long hash : hashes) {
+                long[] entry = entries.get(hash);
+                if (entry[0] == Moves.NONE) {
+                    continue;
+                }
+                out.writeLong(hash);
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeInt((int) entry[2]);
+            }
+        }
+    }
+
+    /**
+     * @param args book file, number of plies (10 by default) and search depth
+     * (12 by default), grading values are loaded from CheckersAI.properties
+     * (or default ones if the file does not exist)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: OpeningBookBuilder <book file> [plies] [depth]");
+            return;
+        }
+        EvaluatorConfig config = new EvaluatorConfig();
+        try (FileInputStream fis = new FileInputStream("CheckersAI.properties")) {
+            config.load(fis);
+        } catch (FileNotFoundException ex) {
+            System.err.println("CheckersAI.properties not found. Loading default values...");
+        }
+        int plies = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int depth = (args.length > 2) ? Integer.parseInt(args[2]) : 12;
+        Statistics.cleanStatistics();
+        OpeningBookBuilder builder = new OpeningBookBuilder(config, plies, depth);
+        builder.build();
+        builder.write(args[0]);
+        System.out.println(builder.getCount() + " positions written to " + args[0]);
+    }
+}
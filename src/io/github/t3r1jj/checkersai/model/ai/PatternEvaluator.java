@@ -0,0 +1,38 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Board;
+
+/**
+ * Evaluator looking up the local terms of the position in a
+ * {@link PatternTable} instead of counting them, the terms reaching across
+ * the board (runaways) are still counted.
+ */
+public class PatternEvaluator extends Evaluator {
+
+    private final PatternTable table;
+
+    public PatternEvaluator(EvaluatorParameters parameters, int cacheKilobytes, PatternTable table) {
+        super(parameters, cacheKilobytes);
+        this.table = table;
+    }
+
+    @Override
+    protected int sumLocalValue(Board board) {
+        return table.evaluate(board.getWhites(), board.getReds(), board.getKings());
+    }
+}
@@ -0,0 +1,159 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Evaluation table of the 8x8 board split into overlapping regions of two
+ * neighbouring rows (8 squares). Occupancy of a region (empty, white pawn,
+ * red pawn, white king or red king on each square) is a base 5 index into
+ * the region's part of one flat table of scores for white. The file starts
+ * with {@link #MAGIC}, the number of regions and the squares of a region,
+ * followed by the scores of all regions.
+ */
+public class PatternTable {
+
+    public static final int MAGIC = 0x43505442;
+    public static final int SIZE = 8;
+    public static final int REGIONS = 7;
+    public static final int REGION_SQUARES = 8;
+    public static final int STATES = 5;
+    public static final int REGION_SIZE = 390625;
+    static final int WHITE_PAWN = 1;
+    static final int RED_PAWN = 2;
+    static final int WHITE_KING = 3;
+    static final int RED_KING = 4;
+    private static final int ROW_SQUARES = SIZE / 2;
+    private static final int HEADER_BYTES = 3 * Integer.SIZE / Byte.SIZE;
+    private static final Map<String, PatternTable> TABLES = new HashMap<String, PatternTable>();
+    // files whose failure has been logged
+    private static final Set<String> FAILED = new HashSet<String>();
+    // base 5 index of the squares of a region mask, with state 1 on each
+    private static final int[] DIGITS = new int[1 << REGION_SQUARES];
+
+    private final short[] scores;
+
+    static {
+        for (int mask = 0; mask < DIGITS.length; mask++) {
+            int power = 1;
+            for (int i = 0; i < REGION_SQUARES; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    DIGITS[mask] += power;
+                }
+                power *= STATES;
+            }
+        }
+    }
+
+    PatternTable(short[] scores) {
+        if (scores.length != REGIONS * REGION_SIZE) {
+            throw new IllegalArgumentException("Pattern table has to have " + REGIONS * REGION_SIZE + " scores");
+        }
+        this.scores = scores;
+    }
+
+    /**
+     * @return table loaded from given file, shared by all callers, or null if
+     * the file name is empty or the file cannot be read. A file that cannot
+     * be read is tried again by the next call, its failure is logged once.
+     */
+    public static PatternTable forFile(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return null;
+        }
+        synchronized (TABLES) {
+            PatternTable table = TABLES.get(fileName);
+            if (table == null) {
+                table = open(new File(fileName));
+                if (table != null) {
+                    TABLES.put(fileName, table);
+                }
+            }
+            return table;
+        }
+    }
+
+    private static PatternTable open(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (bytes.length != HEADER_BYTES + 2 * REGIONS * REGION_SIZE || buffer.getInt() != MAGIC
+                    || buffer.getInt() != REGIONS || buffer.getInt() != REGION_SQUARES) {
+                throw new IOException("Not a pattern table");
+            }
+            short[] scores = new short[REGIONS * REGION_SIZE];
+            buffer.asShortBuffer().get(scores);
+            FAILED.remove(file.getPath());
+            return new PatternTable(scores);
+        } catch (IOException ex) {
+            if (FAILED.add(file.getPath())) {
+                Logger.getLogger(PatternTable.class.getName()).log(Level.WARNING, "Pattern table " + file + " not loaded", ex);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return first square of given region, its squares are the next
+     * {@link #REGION_SQUARES} ones
+     */
+    public static int getFirstSquare(int region) {
+        return region * ROW_SQUARES;
+    }
+
+    /**
+     * @return state of the square at given position of a region of given
+     * index
+     */
+    public static int getState(int index, int position) {
+        for (int i = 0; i < position; i++) {
+            index /= STATES;
+        }
+        return index % STATES;
+    }
+
+    /**
+     * @return score of the position for white, one lookup per region
+     */
+    public int evaluate(int whites, int reds, int kings) {
+        int whitePawns = whites & ~kings;
+        int redPawns = reds & ~kings;
+        int whiteKings = whites & kings;
+        int redKings = reds & kings;
+        int score = 0;
+        int offset = 0;
+        for (int shift = 0; shift < REGIONS * ROW_SQUARES; shift += ROW_SQUARES) {
+            int index = WHITE_PAWN * DIGITS[(whitePawns >>> shift) & 0xFF]
+                    + RED_PAWN * DIGITS[(redPawns >>> shift) & 0xFF]
+                    + WHITE_KING * DIGITS[(whiteKings >>> shift) & 0xFF]
+                    + RED_KING * DIGITS[(redKings >>> shift) & 0xFF];
+            score += scores[offset + index];
+            offset += REGION_SIZE;
+        }
+        return score;
+    }
+}
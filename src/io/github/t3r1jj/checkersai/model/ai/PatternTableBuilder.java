@@ -0,0 +1,146 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Squares;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Builds a {@link PatternTable} of the local terms of {@link Evaluator}: the
+ * pieces (with the square tables), back rank, centre and king mobility. Each
+ * region counts the pieces of its first row (the last region also of its
+ * second row) and the king steps between its two rows, so the regions sum up
+ * to the value counted by the evaluator, clamped to a short.
+ */
+public class PatternTableBuilder {
+
+    private final EvaluatorParameters parameters;
+    private final Squares squares = Squares.forSize(PatternTable.SIZE);
+    private final short[] scores = new short[PatternTable.REGIONS * PatternTable.REGION_SIZE];
+    private int clamped;
+
+    public PatternTableBuilder(EvaluatorConfig config) {
+        this.parameters = config.compile();
+    }
+
+    public void build() {
+        int[] states = new int[PatternTable.REGION_SQUARES];
+        for (int region = 0; region < PatternTable.REGIONS; region++) {
+            int offset = region * PatternTable.REGION_SIZE;
+            for (int index = 0; index < PatternTable.REGION_SIZE; index++) {
+                for (int position = 0; position < states.length; position++) {
+                    states[position] = PatternTable.getState(index, position);
+                }
+                int score = evaluate(region, states);
+                if (score > Short.MAX_VALUE || score < Short.MIN_VALUE) {
+                    score = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score));
+                    clamped++;
+                }
+                scores[offset + index] = (short) score;
+            }
+        }
+    }
+
+    private int evaluate(int region, int[] states) {
+        int first = PatternTable.getFirstSquare(region);
+        int owned = (region == PatternTable.REGIONS - 1) ? states.length : squares.getRowWidth();
+        int score = 0;
+        for (int position = 0; position < owned; position++) {
+            score += evaluatePiece(first + position, states[position]);
+        }
+        int kingMobility = parameters.getKingMobility();
+        for (int position = 0; position < states.length && kingMobility != 0; position++) {
+            int state = states[position];
+            if (state != PatternTable.WHITE_KING && state != PatternTable.RED_KING) {
+                continue;
+            }
+            int square = first + position;
+            int sign = (state == PatternTable.WHITE_KING) ? 1 : -1;
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbour = squares.getNeighbour(square, direction);
+                if (neighbour >= first && neighbour < first + states.length && states[neighbour - first] == 0) {
+                    score += sign * kingMobility;
+                }
+            }
+        }
+        return score;
+    }
+
+    private int evaluatePiece(int square, int state) {
+        int count = squares.getCount();
+        int rotated = count - 1 - square;
+        int bit = 1 << square;
+        int centre = ((squares.getCentre() & bit) != 0) ? parameters.getCentre() : 0;
+        switch (state) {
+            case PatternTable.WHITE_PAWN:
+                int whiteGuard = ((squares.getRow(squares.getSize() - 1) & bit) != 0) ? parameters.getBackRank() : 0;
+                return parameters.getWhitePawn() + parameters.getPawnSquare(square, count) + whiteGuard + centre;
+            case PatternTable.RED_PAWN:
+                int redGuard = ((squares.getRow(0) & bit) != 0) ? parameters.getBackRank() : 0;
+                return -parameters.getRedPawn() - parameters.getPawnSquare(rotated, count) - redGuard - centre;
+            case PatternTable.WHITE_KING:
+                return parameters.getWhiteKing() + parameters.getKingSquare(square, count) + centre;
+            case PatternTable.RED_KING:
+                return -parameters.getRedKing() - parameters.getKingSquare(rotated, count) - centre;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return number of scores out of the range of a short
+     */
+    public int getClamped() {
+        return clamped;
+    }
+
+    public void write(String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            out.writeInt(PatternTable.MAGIC);
+            out.writeInt(PatternTable.REGIONS);
+            out.writeInt(PatternTable.REGION_SQUARES);
+            for (short score : scores) {
+                out.writeShort(score);
+            }
+        }
+    }
+
+    /**
+     * @param args table file, evaluation values are loaded from
+     * CheckersAI.properties (or default ones if the file does not exist)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: PatternTableBuilder <table file>");
+            return;
+        }
+        EvaluatorConfig config = new EvaluatorConfig();
+        try (FileInputStream fis = new FileInputStream("CheckersAI.properties")) {
+            config.load(fis);
+        } catch (FileNotFoundException ex) {
+            System.err.println("CheckersAI.properties not found. Loading default values...");
+        }
+        PatternTableBuilder builder = new PatternTableBuilder(config);
+        builder.build();
+        builder.write(args[0]);
+        System.out.println("Pattern table written to " + args[0] + ", " + builder.getClamped() + " scores clamped");
+    }
+}
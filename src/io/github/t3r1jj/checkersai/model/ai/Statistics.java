@@ -22,11 +22,37 @@ public class Statistics {
     public static BigInteger TOTAL_NODES_EXPANDED_FOR_WHITE_AI;
     public static BigInteger TOTAL_NODES_EXPANDED_FOR_RED_AI;
     public static long MOVES_COUNT;
+    public static long QUIESCENCE_NODES;
+    public static long TRANSPOSITION_HITS;
+    public static long TRANSPOSITION_MISSES;
+    public static long CUTOFFS;
+    public static long FIRST_MOVE_CUTOFFS;
+    public static long PONDER_HITS;
+    public static long PONDER_MISSES;
+    public static long BOOK_MOVES;
+    public static long TABLEBASE_HITS;
+    public static long TABLEBASE_DECOMPRESSIONS;
+    public static long TABLEBASE_DECOMPRESSION_NS;
+    public static long EVALUATION_CACHE_HITS;
+    public static long EVALUATION_CACHE_MISSES;
 
     public static void cleanStatistics() {
         TOTAL_NODES_EXPANDED_FOR_RED_AI = BigInteger.ZERO;
         TOTAL_NODES_EXPANDED_FOR_WHITE_AI = BigInteger.ZERO;
         MOVES_COUNT = 0;
+        QUIESCENCE_NODES = 0;
+        TRANSPOSITION_HITS = 0;
+        TRANSPOSITION_MISSES = 0;
+        CUTOFFS = 0;
+        FIRST_MOVE_CUTOFFS = 0;
+        PONDER_HITS = 0;
+        PONDER_MISSES = 0;
+        BOOK_MOVES = 0;
+        TABLEBASE_HITS = 0;
+        TABLEBASE_DECOMPRESSIONS = 0;
+        TABLEBASE_DECOMPRESSION_NS = 0;
+        EVALUATION_CACHE_HITS = 0;
+        EVALUATION_CACHE_MISSES = 0;
     }
 
 }
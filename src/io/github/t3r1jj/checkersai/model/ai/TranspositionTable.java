@@ -0,0 +1,131 @@
+/* 
+ * Copyright 2015 Damian Terlecki.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.t3r1jj.checkersai.model.ai;
+
+import io.github.t3r1jj.checkersai.model.Moves;
+import java.util.Arrays;
+
+/**
+ * Fixed size table of search results keyed by position hash. Each bucket
+ * has two entries, the first one is replaced only by a result of the same or
+ * deeper search or of a later generation, the second one always. Generation
+ * is advanced by each search, so the table can be kept between the moves of a
+ * game and the stale results give way to the fresh ones. It can be shared by the threads of a
+ * parallel search without locking: the key is stored xor-ed with the entry, so
+ * an entry torn by concurrent writes does not match any position. Hit and miss
+ * counts of a shared table are approximate.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+    private static final int ENTRY_BYTES = 3 * Long.SIZE / Byte.SIZE;
+    private static final long SCORE_MASK = 0xFFFFFFFFL;
+    private static final int GENERATIONS = 64;
+
+    // hash ^ move ^ data
+    private final long[] keys;
+    private final long[] moves;
+    // score (32 bits) | depth (8 bits) | bound (2 bits) | used flag | generation (6 bits)
+    private final long[] data;
+    private final int bucketMask;
+    private int generation;
+    private long hits;
+    private long misses;
+
+    public TranspositionTable(int megabytes) {
+        long entries = Math.max(2, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        moves = new long[size];
+        data = new long[size];
+        bucketMask = size / 2 - 1;
+    }
+
+    public static class Entry {
+
+        public int score;
+        public int depth;
+        public int bound;
+        public long move;
+    }
+
+    /**
+     * Copies the entry of given position into result.
+     *
+     * @return false if the position is not stored
+     */
+    public boolean probe(long hash, Entry result) {
+        int index = (int) hash & bucketMask;
+        for (int i = 2 * index; i < 2 * index + 2; i++) {
+            long entry = data[i];
+            long move = moves[i];
+            if (entry != 0 && (keys[i] ^ move ^ entry) == hash) {
+                result.score = (int) entry;
+                result.depth = (int) (entry >>> 32) & 0xFF;
+                result.bound = (int) (entry >>> 40) & 0x3;
+                result.move = move;
+                hits++;
+                return true;
+            }
+        }
+        misses++;
+        return false;
+    }
+
+    public void store(long hash, int depth, int bound, int score, long move) {
+        int index = 2 * ((int) hash & bucketMask);
+        long entry = data[index];
+        int stored = (int) (entry >>> 32) & 0xFF;
+        int storedGeneration = (int) (entry >>> 43) & (GENERATIONS - 1);
+        if (entry != 0 && (keys[index] ^ moves[index] ^ entry) != hash && depth < stored
+                && storedGeneration == generation) {
+            index++;
+        }
+        long storedMove = moves[index];
+        if (move == Moves.NONE && (keys[index] ^ storedMove ^ data[index]) == hash) {
+            move = storedMove;
+        }
+        entry = (score & SCORE_MASK) | (long) depth << 32 | (long) bound << 40 | 1L << 42
+                | (long) generation << 43;
+        keys[index] = hash ^ move ^ entry;
+        moves[index] = move;
+        data[index] = entry;
+    }
+
+    /**
+     * Starts a new generation, results stored before stay valid but can be
+     * replaced by shallower ones.
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(moves, 0);
+        Arrays.fill(data, 0);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -17,8 +17,8 @@ package io.github.t3r1jj.checkersai.model.checker;
 
 import io.github.t3r1jj.checkersai.model.Board;
 import io.github.t3r1jj.checkersai.model.Move;
+import io.github.t3r1jj.checkersai.model.Squares;
 import io.github.t3r1jj.checkersai.model.Turn;
-import io.github.t3r1jj.checkersai.model.ai.EvaluatorConfig;
 import java.awt.Point;
 import java.util.List;
 import javax.swing.ImageIcon;
@@ -47,9 +47,38 @@ public abstract class Checker implements Cloneable {
         coordinates.y = newCoordinates.y;
     }
 
-    public abstract ImageIcon getImage();
+    /**
+     * @return move to the free neighbour square in given direction (see
+     * {@link Board}) or null
+     */
+    protected Move step(Board board, int direction) {
+        Squares squares = board.getSquares();
+        int destination = squares.getNeighbour(squares.getSquare(coordinates.x, coordinates.y), direction);
+        if (destination < 0 || board.checkers[squares.getY(destination)][squares.getX(destination)].isCollidable()) {
+            return null;
+        }
+        return new Move(new Point(coordinates), new Point(squares.getX(destination), squares.getY(destination)));
+    }
+
+    /**
+     * @return jump over the enemy neighbour in given direction or null
+     */
+    protected Move capture(Board board, int direction) {
+        Squares squares = board.getSquares();
+        int square = squares.getSquare(coordinates.x, coordinates.y);
+        int destination = squares.getLanding(square, direction);
+        if (destination < 0) {
+            return null;
+        }
+        int jumped = squares.getNeighbour(square, direction);
+        if (!isEnemy(board.checkers[squares.getY(jumped)][squares.getX(jumped)])
+                || board.checkers[squares.getY(destination)][squares.getX(destination)].isCollidable()) {
+            return null;
+        }
+        return new Move(new Point(coordinates), new Point(squares.getX(destination), squares.getY(destination)));
+    }
 
-    public abstract int getValue(EvaluatorConfig config, Turn turn);
+    public abstract ImageIcon getImage();
 
     public abstract List<Move> generateForcedMoves(Board board);
 
@@ -63,6 +92,8 @@ public abstract class Checker implements Cloneable {
 
     public abstract Checker tryPromoting(Board board);
 
+    public abstract Checker promote();
+
     @Override
     public abstract Checker clone();
 }
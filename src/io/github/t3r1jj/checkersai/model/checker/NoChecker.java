@@ -18,7 +18,6 @@ package io.github.t3r1jj.checkersai.model.checker;
 import io.github.t3r1jj.checkersai.model.Board;
 import io.github.t3r1jj.checkersai.model.Move;
 import io.github.t3r1jj.checkersai.model.Turn;
-import io.github.t3r1jj.checkersai.model.ai.EvaluatorConfig;
 import java.awt.Point;
 import java.util.Collections;
 import java.util.List;
@@ -88,8 +87,8 @@ public class NoChecker extends Checker {
     }
 
     @Override
-    public int getValue(EvaluatorConfig config, Turn turn) {
-        return 0;
+    public Checker promote() {
+        return this;
     }
 
 }
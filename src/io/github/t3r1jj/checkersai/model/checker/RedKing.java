@@ -17,8 +17,6 @@ package io.github.t3r1jj.checkersai.model.checker;
 
 import io.github.t3r1jj.checkersai.model.Board;
 import io.github.t3r1jj.checkersai.model.Move;
-import io.github.t3r1jj.checkersai.model.Turn;
-import io.github.t3r1jj.checkersai.model.ai.EvaluatorConfig;
 import java.awt.Image;
 import java.awt.Point;
 import java.util.List;
@@ -65,43 +63,19 @@ public class RedKing extends RedPawn {
     }
 
     public Move upLeft(Board board) {
-        Move upLeft = null;
-        if (this.coordinates.y > 0 && this.coordinates.x > 0
-                && !board.checkers[this.coordinates.y - 1][this.coordinates.x - 1].isCollidable()) {
-            upLeft = new Move(new Point(coordinates), new Point(this.coordinates.x - 1, this.coordinates.y - 1));
-        }
-        return upLeft;
+        return step(board, Board.UP_LEFT);
     }
 
     public Move upRight(Board board) {
-        Move upRight = null;
-        if (this.coordinates.y > 0 && this.coordinates.x < board.getLength() - 1
-                && !board.checkers[this.coordinates.y - 1][this.coordinates.x + 1].isCollidable()) {
-            upRight = new Move(new Point(coordinates), new Point(this.coordinates.x + 1, this.coordinates.y - 1));
-        }
-        return upRight;
+        return step(board, Board.UP_RIGHT);
     }
 
     public Move upLeftCapture(Board board) {
-        Move upLeftCapture = null;
-
-        if (this.coordinates.y > 1 && this.coordinates.x > 1
-                && isEnemy(board.checkers[this.coordinates.y - 1][this.coordinates.x - 1])
-                && !board.checkers[this.coordinates.y - 2][this.coordinates.x - 2].isCollidable()) {
-            upLeftCapture = new Move(new Point(coordinates), new Point(this.coordinates.x - 2, this.coordinates.y - 2));
-        }
-        return upLeftCapture;
+        return capture(board, Board.UP_LEFT);
     }
 
     public Move upRightCapture(Board board) {
-        Move upRightCapture = null;
-
-        if (this.coordinates.y > 1 && this.coordinates.x < board.getLength() - 2
-                && isEnemy(board.checkers[this.coordinates.y - 1][this.coordinates.x + 1])
-                && !board.checkers[this.coordinates.y - 2][this.coordinates.x + 2].isCollidable()) {
-            upRightCapture = new Move(new Point(coordinates), new Point(this.coordinates.x + 2, this.coordinates.y - 2));
-        }
-        return upRightCapture;
+        return capture(board, Board.UP_RIGHT);
     }
 
     @Override
@@ -125,8 +99,8 @@ public class RedKing extends RedPawn {
     }
 
     @Override
-    public int getValue(EvaluatorConfig config, Turn turn) {
-        return (turn == RedPawn.SIDE) ? config.getRedKing() : -config.getRedKing();
+    public RedKing promote() {
+        return this;
     }
 
 }
@@ -17,8 +17,6 @@ package io.github.t3r1jj.checkersai.model.checker;
 
 import io.github.t3r1jj.checkersai.model.Board;
 import io.github.t3r1jj.checkersai.model.Move;
-import io.github.t3r1jj.checkersai.model.Turn;
-import io.github.t3r1jj.checkersai.model.ai.EvaluatorConfig;
 import java.awt.Image;
 import java.util.List;
 import java.awt.Point;
@@ -65,43 +63,19 @@ public class WhiteKing extends WhitePawn {
     }
 
     public Move downLeft(Board board) {
-        Move upLeft = null;
-        if (this.coordinates.y < board.getHeight() - 1 && this.coordinates.x > 0
-                && !board.checkers[this.coordinates.y + 1][this.coordinates.x - 1].isCollidable()) {
-            upLeft = new Move(new Point(coordinates), new Point(this.coordinates.x - 1, this.coordinates.y + 1));
-        }
-        return upLeft;
+        return step(board, Board.DOWN_LEFT);
     }
 
     public Move downRight(Board board) {
-        Move upRight = null;
-        if (this.coordinates.y < board.getHeight() - 1 && this.coordinates.x < board.getLength() - 1
-                && !board.checkers[this.coordinates.y + 1][this.coordinates.x + 1].isCollidable()) {
-            upRight = new Move(new Point(coordinates), new Point(this.coordinates.x + 1, this.coordinates.y + 1));
-        }
-        return upRight;
+        return step(board, Board.DOWN_RIGHT);
     }
 
     public Move downRightCapture(Board board) {
-        Move downRightCapture = null;
-
-        if (this.coordinates.y < board.getHeight() - 2 && this.coordinates.x < board.getLength() - 2
-                && isEnemy(board.checkers[this.coordinates.y + 1][this.coordinates.x + 1])
-                && !board.checkers[this.coordinates.y + 2][this.coordinates.x + 2].isCollidable()) {
-            downRightCapture = new Move(new Point(coordinates), new Point(this.coordinates.x + 2, this.coordinates.y + 2));
-        }
-        return downRightCapture;
+        return capture(board, Board.DOWN_RIGHT);
     }
 
     public Move downLeftCapture(Board board) {
-        Move downLeftCapture = null;
-
-        if (this.coordinates.y < board.getHeight() - 2 && this.coordinates.x > 1
-                && isEnemy(board.checkers[this.coordinates.y + 1][this.coordinates.x - 1])
-                && !board.checkers[this.coordinates.y + 2][this.coordinates.x - 2].isCollidable()) {
-            downLeftCapture = new Move(new Point(coordinates), new Point(this.coordinates.x - 2, this.coordinates.y + 2));
-        }
-        return downLeftCapture;
+        return capture(board, Board.DOWN_LEFT);
     }
 
     @Override
@@ -125,8 +99,8 @@ public class WhiteKing extends WhitePawn {
     }
 
     @Override
-    public int getValue(EvaluatorConfig config, Turn turn) {
-        return (turn == WhitePawn.SIDE) ? config.getWhiteKing() : -config.getWhiteKing();
+    public WhiteKing promote() {
+        return this;
     }
 
 }
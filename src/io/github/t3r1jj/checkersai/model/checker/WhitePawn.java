@@ -16,7 +16,6 @@
 package io.github.t3r1jj.checkersai.model.checker;
 
 import io.github.t3r1jj.checkersai.model.Board;
-import io.github.t3r1jj.checkersai.model.ai.EvaluatorConfig;
 import io.github.t3r1jj.checkersai.model.Move;
 import io.github.t3r1jj.checkersai.model.Turn;
 import java.awt.Image;
@@ -66,45 +65,25 @@ public class WhitePawn extends Checker {
         return moves;
     }
 
+    @Override
+    public WhiteKing promote() {
+        return new WhiteKing(this.coordinates);
+    }
+
     public Move upLeft(Board board) {
-        Move upLeft = null;
-        if (this.coordinates.y > 0 && this.coordinates.x > 0
-                && !board.checkers[this.coordinates.y - 1][this.coordinates.x - 1].isCollidable()) {
-            upLeft = new Move(new Point(coordinates), new Point(this.coordinates.x - 1, this.coordinates.y - 1));
-        }
-        return upLeft;
+        return step(board, Board.UP_LEFT);
     }
 
     public Move upRight(Board board) {
-        Move upRight = null;
-        if (this.coordinates.y > 0 && this.coordinates.x < board.getLength() - 1
-                && !board.checkers[this.coordinates.y - 1][this.coordinates.x + 1].isCollidable()) {
-            upRight = new Move(new Point(coordinates), new Point(this.coordinates.x + 1, this.coordinates.y - 1));
-        }
-        return upRight;
+        return step(board, Board.UP_RIGHT);
     }
 
     public Move upLeftCapture(Board board) {
-        Move upLeftCapture = null;
-
-        if (this.coordinates.y > 1 && this.coordinates.x > 1
-                && isEnemy(board.checkers[this.coordinates.y - 1][this.coordinates.x - 1])
-                && !board.checkers[this.coordinates.y - 2][this.coordinates.x - 2].isCollidable()) {
-            upLeftCapture = new Move(new Point(coordinates), new Point(this.coordinates.x - 2, this.coordinates.y - 2));
-        }
-
-        return upLeftCapture;
+        return capture(board, Board.UP_LEFT);
     }
 
     public Move upRightCapture(Board board) {
-        Move upRightCapture = null;
-
-        if (this.coordinates.y > 1 && this.coordinates.x < board.getLength() - 2
-                && isEnemy(board.checkers[this.coordinates.y - 1][this.coordinates.x + 1])
-                && !board.checkers[this.coordinates.y - 2][this.coordinates.x + 2].isCollidable()) {
-            upRightCapture = new Move(new Point(coordinates), new Point(this.coordinates.x + 2, this.coordinates.y - 2));
-        }
-        return upRightCapture;
+        return capture(board, Board.UP_RIGHT);
     }
 
     @Override
@@ -145,9 +124,4 @@ public class WhitePawn extends Checker {
         return this;
     }
 
-    @Override
-    public int getValue(EvaluatorConfig config, Turn turn) {
-        return (turn == SIDE) ? config.getWhitePawn() : -config.getWhitePawn();
-    }
-
 }
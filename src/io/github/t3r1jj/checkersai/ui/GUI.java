@@ -456,6 +456,21 @@ public class GUI extends JFrame implements UI {
                 printDataInfo("\n" + CONFIG.getFunctionConfig());
                 break;
         }
+        if (CONFIG.getGameplay() != 'n') {
+            printDataInfo("\n\nQuiescence search nodes: " + Statistics.QUIESCENCE_NODES);
+            printDataInfo("\nTransposition table hits: " + Statistics.TRANSPOSITION_HITS
+                    + ", misses: " + Statistics.TRANSPOSITION_MISSES);
+            printDataInfo("\nCutoffs on the first move: " + Statistics.FIRST_MOVE_CUTOFFS
+                    + " of " + Statistics.CUTOFFS);
+            printDataInfo("\nPonder hits: " + Statistics.PONDER_HITS
+                    + ", misses: " + Statistics.PONDER_MISSES);
+            printDataInfo("\nOpening book moves: " + Statistics.BOOK_MOVES);
+            printDataInfo("\nEndgame database hits: " + Statistics.TABLEBASE_HITS
+                    + ", blocks decompressed: " + Statistics.TABLEBASE_DECOMPRESSIONS
+                    + " in " + Statistics.TABLEBASE_DECOMPRESSION_NS / 1000000 + " ms");
+            printDataInfo("\nEvaluation cache hits: " + Statistics.EVALUATION_CACHE_HITS
+                    + ", misses: " + Statistics.EVALUATION_CACHE_MISSES);
+        }
     }
 
     @Override